@@ -2,4 +2,31 @@ create database ems;
 use ems;
 show tables;
 
-select * from employee;
\ No newline at end of file
+select * from employee;
+
+-- employee ids now come from the pooled employee_seq table; on an existing database
+-- move it past the ids handed out by the old auto_increment column. The pooled optimizer
+-- hands out the block of allocationSize (50) ids below each sequence value
+update employee_seq set next_val = (select coalesce(max(id), 0) + 51 from employee);
+
+-- composite index behind the employee name search
+create index idx_employee_name on employee (fist_name, last_name);
+
+-- heartbeat the read replica lag is measured with, see ReplicaLagMonitor
+create table replica_heartbeat (id int primary key, beat_at bigint not null);
+
+-- outbox of employee changes behind GET /api/employees/changes, see EmployeeChangeFeed
+create table employee_change (
+    id bigint not null auto_increment primary key,
+    type varchar(16) not null,
+    employee_id bigint not null,
+    first_name varchar(255),
+    last_name varchar(255),
+    email varchar(255),
+    changed_at datetime(6) not null,
+    index idx_employee_change_changed_at (changed_at)
+);
+
+-- row every employee_change insert locks first, which keeps change ids in commit order
+create table employee_change_lock (id int primary key);
+insert into employee_change_lock (id) values (1);
@@ -0,0 +1,69 @@
+package net.javaguides.benchmark;
+
+import net.javaguides.model.Employee;
+import net.javaguides.service.EmployeeService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Inserts the same number of employees through the single-row create path (duplicate check plus
+ * insert per employee) and through the batch path (one set-based email check plus JDBC batches).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BatchInsertBenchmark {
+
+    @Param("1000")
+    private int employees;
+
+    private ConfigurableApplicationContext context;
+    private EmployeeService employeeService;
+    private JdbcTemplate jdbcTemplate;
+    private long sequence;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = BenchmarkApplication.start();
+        employeeService = context.getBean(EmployeeService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+    }
+
+    @Setup(Level.Iteration)
+    public void clearTable() {
+        jdbcTemplate.update("delete from employee");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void singleRow() {
+        for (Employee employee : newEmployees()) {
+            employeeService.saveEmployee(employee);
+        }
+    }
+
+    @Benchmark
+    public List<Employee> batch() {
+        return employeeService.saveEmployees(newEmployees());
+    }
+
+    private List<Employee> newEmployees() {
+        List<Employee> batch = new ArrayList<>(employees);
+        for (int i = 0; i < employees; i++) {
+            batch.add(BenchmarkData.employee(sequence++));
+        }
+        return batch;
+    }
+}
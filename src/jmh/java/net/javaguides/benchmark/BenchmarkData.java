@@ -0,0 +1,64 @@
+package net.javaguides.benchmark;
+
+import net.javaguides.model.Employee;
+import net.javaguides.service.impl.EmailBloomFilter;
+import net.javaguides.service.impl.EmployeeSearchIndex;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reproducible benchmark datasets: employee {@code n} always has id {@code n}, first name {@code First<n>},
+ * last name {@code Last<n>} and email {@code employee<n>@example.com}, and random picks use a fixed seed.
+ */
+final class BenchmarkData {
+
+    static final long SEED = 42;
+
+    private static final String INSERT = "insert into employee (id, fist_name, last_name, email, version) values (?, ?, ?, ?, 0)";
+
+    private BenchmarkData() {
+    }
+
+    //Inserts employees 1..rows with JDBC batches, then moves the id sequence, the email filter and the search index past them
+    static void seed(ConfigurableApplicationContext context, int rows) {
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        List<Object[]> batch = new ArrayList<>();
+        for (long id = 1; id <= rows; id++) {
+            batch.add(new Object[]{id, firstName(id), lastName(id), email(id)});
+            if (batch.size() == 1000) {
+                jdbcTemplate.batchUpdate(INSERT, batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT, batch);
+        }
+        //the pooled optimizer hands out the block of allocationSize (50) ids below each sequence value
+        jdbcTemplate.execute("alter sequence employee_seq restart with " + (rows + 51));
+        context.getBean(EmailBloomFilter.class).warmUp();
+        context.getBean(EmployeeSearchIndex.class).warmUp();
+    }
+
+    static Employee employee(long n) {
+        return Employee.builder()
+                .firstName(firstName(n))
+                .lastName(lastName(n))
+                .email(email(n))
+                .build();
+    }
+
+    static String firstName(long n) {
+        return "First" + n;
+    }
+
+    static String lastName(long n) {
+        return "Last" + n;
+    }
+
+    static String email(long n) {
+        return "employee" + n + "@example.com";
+    }
+}
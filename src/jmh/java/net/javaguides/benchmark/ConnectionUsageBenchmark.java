@@ -0,0 +1,137 @@
+package net.javaguides.benchmark;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Connection pool checkouts per HTTP request and how long each request holds its connection, read from
+ * the pool's hikaricp.connections.acquire and .usage timers and reported as the auxiliary counters
+ * {@code acquisitions}, {@code heldMillis} and {@code requests}; divide by {@code requests} for per request
+ * figures. Compares open-in-view, which keeps the connection until the response has been serialized:
+ * {@code ./mvnw -P benchmark test-compile exec:exec -Djmh.args="ConnectionUsageBenchmark"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConnectionUsageBenchmark {
+
+    @Param({"true", "false"})
+    private boolean openInView;
+
+    @Param("10000")
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient httpClient;
+    private String baseUri;
+    private Timer acquire;
+    private Timer usage;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Connections {
+
+        public long requests;
+        public long acquisitions;
+        public double heldMillis;
+
+        private long lastAcquisitions;
+        private double lastHeldMillis;
+
+        @Setup(Level.Iteration)
+        public void reset(ConnectionUsageBenchmark benchmark) {
+            requests = 0;
+            acquisitions = 0;
+            heldMillis = 0;
+            lastAcquisitions = benchmark.acquire.count();
+            lastHeldMillis = benchmark.usage.totalTime(TimeUnit.MILLISECONDS);
+        }
+
+        void record(ConnectionUsageBenchmark benchmark) {
+            long currentAcquisitions = benchmark.acquire.count();
+            double currentHeldMillis = benchmark.usage.totalTime(TimeUnit.MILLISECONDS);
+            requests++;
+            acquisitions += currentAcquisitions - lastAcquisitions;
+            heldMillis += currentHeldMillis - lastHeldMillis;
+            lastAcquisitions = currentAcquisitions;
+            lastHeldMillis = currentHeldMillis;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Client {
+
+        private final SplittableRandom random = new SplittableRandom(BenchmarkData.SEED);
+        private long created;
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        //a one-email Bloom filter is saturated by the seeded rows, so every create runs its duplicate-check
+        //SELECT before the INSERT
+        context = BenchmarkApplication.startWebServer("spring.jpa.open-in-view=" + openInView,
+                "employee.email-filter.expected-emails=1");
+        BenchmarkData.seed(context, rows);
+        MeterRegistry meterRegistry = context.getBean(MeterRegistry.class);
+        acquire = meterRegistry.get("hikaricp.connections.acquire").timer();
+        usage = meterRegistry.get("hikaricp.connections.usage").timer();
+        httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        baseUri = "http://localhost:" + BenchmarkApplication.port(context) + "/api/employees";
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int page(Client client, Connections connections) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUri + "?limit=20&afterId=" + client.random.nextLong(rows))).build();
+        return send(request, connections);
+    }
+
+    @Benchmark
+    public int create(Client client, Connections connections) throws IOException, InterruptedException {
+        long n = rows + 1 + client.created++;
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUri))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json(n)))
+                .build();
+        return send(request, connections);
+    }
+
+    //employee lookups before the update are mostly served from the cache, like in production
+    @Benchmark
+    public int update(Client client, Connections connections) throws IOException, InterruptedException {
+        long id = client.random.nextLong(rows) + 1;
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUri + "/" + id))
+                .header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofString(json(id)))
+                .build();
+        return send(request, connections);
+    }
+
+    private int send(HttpRequest request, Connections connections) throws IOException, InterruptedException {
+        int status = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        connections.record(this);
+        return status;
+    }
+
+    private static String json(long n) {
+        return "{\"firstName\":\"" + BenchmarkData.firstName(n) + "\",\"lastName\":\"" + BenchmarkData.lastName(n)
+                + "\",\"email\":\"" + BenchmarkData.email(n) + "\"}";
+    }
+}
@@ -0,0 +1,71 @@
+package net.javaguides.benchmark;
+
+import net.javaguides.model.Employee;
+import net.javaguides.repository.EmployeeRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of the four name finders of EmployeeRepository (JPQL and native SQL, index and named
+ * parameters) looking up random seeded employees.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmployeeRepositoryBenchmark {
+
+    @Param({"1000", "100000"})
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+    private EmployeeRepository employeeRepository;
+    private SplittableRandom random;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = BenchmarkApplication.start();
+        employeeRepository = context.getBean(EmployeeRepository.class);
+        BenchmarkData.seed(context, rows);
+        random = new SplittableRandom(BenchmarkData.SEED);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Employee> findByJPQL() {
+        long n = randomEmployee();
+        return employeeRepository.findByJPQL(BenchmarkData.firstName(n), BenchmarkData.lastName(n));
+    }
+
+    @Benchmark
+    public List<Employee> findByJPQLNamedParams() {
+        long n = randomEmployee();
+        return employeeRepository.findByJPQLNamedParams(BenchmarkData.firstName(n), BenchmarkData.lastName(n));
+    }
+
+    @Benchmark
+    public List<Employee> findByNativeSQL() {
+        long n = randomEmployee();
+        return employeeRepository.findByNativeSQL(BenchmarkData.firstName(n), BenchmarkData.lastName(n));
+    }
+
+    @Benchmark
+    public List<Employee> findByNativeSQLNamedParams() {
+        long n = randomEmployee();
+        return employeeRepository.findByNativeSQLNamedParams(BenchmarkData.firstName(n), BenchmarkData.lastName(n));
+    }
+
+    private long randomEmployee() {
+        return random.nextLong(rows) + 1;
+    }
+}
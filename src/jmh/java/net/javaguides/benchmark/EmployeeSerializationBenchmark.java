@@ -0,0 +1,71 @@
+package net.javaguides.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.javaguides.model.Employee;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of Employee lists the size of API pages and exports, in each response format the
+ * controllers negotiate, using the same ObjectMapper defaults Spring MVC builds for them. The serialized
+ * size is printed at the start of each trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmployeeSerializationBenchmark {
+
+    private static final TypeReference<List<Employee>> EMPLOYEE_LIST = new TypeReference<List<Employee>>() {
+    };
+
+    @Param({"100", "1000", "10000"})
+    private int size;
+
+    @Param({"json", "smile", "cbor"})
+    private String format;
+
+    private ObjectMapper objectMapper;
+    private List<Employee> employees;
+    private byte[] serialized;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        switch (format) {
+            case "smile":
+                objectMapper = Jackson2ObjectMapperBuilder.smile().build();
+                break;
+            case "cbor":
+                objectMapper = Jackson2ObjectMapperBuilder.cbor().build();
+                break;
+            default:
+                objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        }
+        employees = new ArrayList<>(size);
+        for (long n = 1; n <= size; n++) {
+            Employee employee = BenchmarkData.employee(n);
+            employee.setId(n);
+            employee.setVersion(0L);
+            employees.add(employee);
+        }
+        serialized = objectMapper.writeValueAsBytes(employees);
+        System.out.printf("%n%s, %d employees: %d bytes%n", format, size, serialized.length);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws Exception {
+        return objectMapper.writeValueAsBytes(employees);
+    }
+
+    @Benchmark
+    public List<Employee> deserialize() throws Exception {
+        return objectMapper.readValue(serialized, EMPLOYEE_LIST);
+    }
+}
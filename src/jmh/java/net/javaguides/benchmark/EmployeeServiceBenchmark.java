@@ -0,0 +1,79 @@
+package net.javaguides.benchmark;
+
+import net.javaguides.model.Employee;
+import net.javaguides.service.EmployeeService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-threaded latency of the EmployeeService CRUD paths over a seeded table. Reads go through the
+ * employee cache, so with more rows than the cache holds they mix cache hits and database lookups.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmployeeServiceBenchmark {
+
+    @Param({"1000", "100000"})
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+    private EmployeeService employeeService;
+    private SplittableRandom random;
+    private long nextEmployee;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = BenchmarkApplication.start();
+        employeeService = context.getBean(EmployeeService.class);
+        BenchmarkData.seed(context, rows);
+        random = new SplittableRandom(BenchmarkData.SEED);
+        nextEmployee = rows + 1L;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Employee create() {
+        return employeeService.saveEmployee(BenchmarkData.employee(nextEmployee++));
+    }
+
+    @Benchmark
+    public Optional<Employee> getById() {
+        return employeeService.getEmployeeById(randomId());
+    }
+
+    @Benchmark
+    public Employee update() {
+        Employee employee = employeeService.getEmployeeById(randomId()).orElseThrow();
+        Employee changedEmployee = Employee.builder()
+                .id(employee.getId())
+                .firstName(employee.getFirstName())
+                .lastName(employee.getLastName() + "x")
+                .email(employee.getEmail())
+                .version(employee.getVersion())
+                .build();
+        return employeeService.updateEmployee(changedEmployee);
+    }
+
+    //creates its own row to delete so the seeded dataset keeps its size
+    @Benchmark
+    public boolean createAndDelete() {
+        Employee employee = employeeService.saveEmployee(BenchmarkData.employee(nextEmployee++));
+        return employeeService.deleteEmployee(employee.getId());
+    }
+
+    private long randomId() {
+        return random.nextLong(rows) + 1;
+    }
+}
@@ -0,0 +1,71 @@
+package net.javaguides.benchmark;
+
+import net.javaguides.model.Employee;
+import net.javaguides.repository.EmployeeRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares fetching one page at increasing depths with keyset pagination ({@code id > :afterId})
+ * against OFFSET pagination. Keyset latency should stay flat while OFFSET grows with the depth.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KeysetPaginationBenchmark {
+
+    @Param("100000")
+    private int rows;
+
+    @Param({"0", "10000", "50000", "99000"})
+    private int depth;
+
+    @Param("100")
+    private int pageSize;
+
+    private ConfigurableApplicationContext context;
+    private EmployeeRepository employeeRepository;
+    private EntityManagerFactory entityManagerFactory;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = BenchmarkApplication.start();
+        employeeRepository = context.getBean(EmployeeRepository.class);
+        entityManagerFactory = context.getBean(EntityManagerFactory.class);
+
+        BenchmarkData.seed(context, rows);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Employee> keyset() {
+        //ids are dense from 1, so the row at position depth has id == depth
+        return employeeRepository.findPageAfter((long) depth, PageRequest.of(0, pageSize));
+    }
+
+    @Benchmark
+    public List<Employee> offset() {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            return entityManager.createQuery("select e from Employee e order by e.id", Employee.class)
+                    .setFirstResult(depth)
+                    .setMaxResults(pageSize)
+                    .getResultList();
+        } finally {
+            entityManager.close();
+        }
+    }
+}
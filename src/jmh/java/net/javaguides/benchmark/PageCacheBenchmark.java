@@ -0,0 +1,80 @@
+package net.javaguides.benchmark;
+
+import net.javaguides.event.EmployeeChangedEvent;
+import net.javaguides.service.impl.EmployeePageCache;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Polls of one page of GET /api/employees over HTTP: rebuilt on every request as after a change, answered
+ * from the cached JSON or its gzip copy, and revalidated with If-None-Match, which is a 304 without a body:
+ * {@code ./mvnw -P benchmark test-compile exec:exec -Djmh.args="PageCacheBenchmark"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PageCacheBenchmark {
+
+    @Param("10000")
+    private int rows;
+
+    @Param({"100", "1000"})
+    private int limit;
+
+    private ConfigurableApplicationContext context;
+    private EmployeePageCache pageCache;
+    private HttpClient httpClient;
+    private URI pageUri;
+    private String eTag;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException, InterruptedException {
+        context = BenchmarkApplication.startWebServer();
+        BenchmarkData.seed(context, rows);
+        pageCache = context.getBean(EmployeePageCache.class);
+        httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        pageUri = URI.create("http://localhost:" + BenchmarkApplication.port(context) + "/api/employees?limit=" + limit);
+        eTag = httpClient.send(HttpRequest.newBuilder(pageUri).build(), HttpResponse.BodyHandlers.discarding())
+                .headers().firstValue("ETag").orElseThrow();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] uncached() throws IOException, InterruptedException {
+        pageCache.onEmployeeChanged(EmployeeChangedEvent.deleted(0L));
+        return send(HttpRequest.newBuilder(pageUri).build());
+    }
+
+    @Benchmark
+    public byte[] cached() throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(pageUri).build());
+    }
+
+    @Benchmark
+    public byte[] cachedGzip() throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(pageUri).header("Accept-Encoding", "gzip").build());
+    }
+
+    @Benchmark
+    public byte[] notModified() throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(pageUri).header("If-None-Match", eTag).build());
+    }
+
+    private byte[] send(HttpRequest request) throws IOException, InterruptedException {
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray()).body();
+    }
+}
@@ -0,0 +1,66 @@
+package net.javaguides.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GET /api/employees/{id} over HTTP with more concurrent clients than the JDBC pool has connections, served by
+ * Tomcat's platform thread pool or by virtual threads behind the concurrency limiter. The employee cache is
+ * off so every request checks out a connection. Run with the default gc profiler to compare allocation, the
+ * virtual mode needs a Java 21 runtime:
+ * {@code ./mvnw -P benchmark,jdk21 test-compile exec:exec -Djmh.args="RequestExecutionBenchmark"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(64)
+@Fork(1)
+public class RequestExecutionBenchmark {
+
+    @Param({"platform", "virtual"})
+    private String threads;
+
+    @Param("10000")
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient httpClient;
+    private String baseUri;
+
+    @State(Scope.Thread)
+    public static class Client {
+
+        private final SplittableRandom random = new SplittableRandom(BenchmarkData.SEED);
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = BenchmarkApplication.startWebServer(
+                "employee.virtual-threads.enabled=" + "virtual".equals(threads),
+                "spring.cache.type=none");
+        BenchmarkData.seed(context, rows);
+        httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        baseUri = "http://localhost:" + BenchmarkApplication.port(context) + "/api/employees/";
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int getById(Client client) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUri + (client.random.nextLong(rows) + 1))).build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
@@ -0,0 +1,87 @@
+package net.javaguides.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Create throughput of concurrent HTTP clients with synchronous writes against the write-behind queue,
+ * without and with its journal. A 503 from a full queue is retried, so once the small queue has filled
+ * the accepted rate is the rate the writer commits at rather than the rate requests can be queued:
+ * {@code ./mvnw -P benchmark test-compile exec:exec -Djmh.args="WriteBehindBenchmark"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class WriteBehindBenchmark {
+
+    @Param({"sync", "write-behind", "journal", "journal-fsync"})
+    private String mode;
+
+    @Param("10000")
+    private int rows;
+
+    private final AtomicLong created = new AtomicLong();
+
+    private ConfigurableApplicationContext context;
+    private HttpClient httpClient;
+    private String baseUri;
+    private Path journalDirectory;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        journalDirectory = Files.createTempDirectory("write-behind");
+        context = BenchmarkApplication.startWebServer(
+                "employee.write-behind.enabled=" + !mode.equals("sync"),
+                "employee.write-behind.queue-capacity=1000",
+                "employee.write-behind.journal-dir=" + (mode.startsWith("journal") ? journalDirectory : ""),
+                "employee.write-behind.journal-fsync=" + mode.equals("journal-fsync"));
+        BenchmarkData.seed(context, rows);
+        created.set(rows);
+        httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        baseUri = "http://localhost:" + BenchmarkApplication.port(context) + "/api/employees";
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        try (var files = Files.list(journalDirectory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(journalDirectory);
+    }
+
+    @Benchmark
+    public int create() throws IOException, InterruptedException {
+        long n = created.incrementAndGet();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUri))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json(n)))
+                .build();
+        int status;
+        while ((status = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode()) == 503) {
+            Thread.sleep(1);
+        }
+        return status;
+    }
+
+    private static String json(long n) {
+        return "{\"firstName\":\"" + BenchmarkData.firstName(n) + "\",\"lastName\":\"" + BenchmarkData.lastName(n)
+                + "\",\"email\":\"" + BenchmarkData.email(n) + "\"}";
+    }
+}
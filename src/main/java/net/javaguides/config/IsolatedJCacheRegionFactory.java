@@ -0,0 +1,21 @@
+package net.javaguides.config;
+
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+
+import javax.cache.spi.CachingProvider;
+
+/**
+ * JCache region factory that gives every session factory a cache manager of its own. Caching providers
+ * hand out one cache manager per configuration URI and class loader, and Hibernate closes its manager with
+ * the session factory, so application contexts living side by side (as in the tests) would otherwise close
+ * each other's second-level cache. Asking for the manager through a class loader of its own, which
+ * delegates everything to the usual one, makes the provider create a separate manager.
+ */
+public class IsolatedJCacheRegionFactory extends JCacheRegionFactory {
+
+    @Override
+    protected ClassLoader getClassLoader(CachingProvider cachingProvider) {
+        return new ClassLoader(super.getClassLoader(cachingProvider)) {
+        };
+    }
+}
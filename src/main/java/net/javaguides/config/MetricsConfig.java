@@ -0,0 +1,36 @@
+package net.javaguides.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import net.javaguides.filter.SqlStatementCountingFilter;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+//Metrics beyond what Actuator binds by itself (http.server.requests, spring.data.repository.invocations,
+//cache.gets, hikaricp.*, hibernate.*): @Timed methods and SQL statements per request
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+
+    @Bean
+    public FilterRegistrationBean<SqlStatementCountingFilter> sqlStatementCountingFilter(MeterRegistry meterRegistry) {
+        FilterRegistrationBean<SqlStatementCountingFilter> registration =
+                new FilterRegistrationBean<>(new SqlStatementCountingFilter(meterRegistry));
+        registration.addUrlPatterns("/api/*");
+        return registration;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer sqlStatementCountingCustomizer(
+            FilterRegistrationBean<SqlStatementCountingFilter> sqlStatementCountingFilter) {
+        return hibernateProperties -> hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR,
+                sqlStatementCountingFilter.getFilter());
+    }
+}
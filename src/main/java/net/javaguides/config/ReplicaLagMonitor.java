@@ -0,0 +1,81 @@
+package net.javaguides.config;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures replication lag with a heartbeat row (see replica_heartbeat in queries.sql): every check reads
+ * the last beat that reached the replica, then writes the current time to the primary. The replica counts
+ * as available while its last beat is at most {@code maxLag} old, so it also falls out of use when checks
+ * fail or stop. The measured lag overshoots by up to one check interval; keep maxLag well above it.
+ */
+public class ReplicaLagMonitor implements Closeable {
+
+    static final String SELECT_HEARTBEAT = "select beat_at from replica_heartbeat where id = 1";
+    static final String UPDATE_HEARTBEAT = "update replica_heartbeat set beat_at = ? where id = 1";
+    static final String INSERT_HEARTBEAT = "insert into replica_heartbeat (id, beat_at) values (1, ?)";
+
+    private final JdbcTemplate primary;
+    private final JdbcTemplate replica;
+    private final long maxLagMillis;
+    private final Duration checkInterval;
+
+    //epoch millis of the newest beat seen on the replica, 0 until a check succeeds
+    private volatile long replicatedBeat;
+    private ScheduledExecutorService scheduler;
+
+    public ReplicaLagMonitor(DataSource primary, DataSource replica, Duration maxLag, Duration checkInterval) {
+        this.primary = new JdbcTemplate(primary);
+        this.replica = new JdbcTemplate(replica);
+        this.maxLagMillis = maxLag.toMillis();
+        this.checkInterval = checkInterval;
+    }
+
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "replica-lag-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::check, 0, checkInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public void check() {
+        try {
+            Long beat = replica.query(SELECT_HEARTBEAT, rs -> rs.next() ? rs.getLong(1) : null);
+            replicatedBeat = beat == null ? 0 : beat;
+        } catch (RuntimeException e) {
+            replicatedBeat = 0;
+        }
+        try {
+            long now = System.currentTimeMillis();
+            if (primary.update(UPDATE_HEARTBEAT, now) == 0) {
+                primary.update(INSERT_HEARTBEAT, now);
+            }
+        } catch (RuntimeException e) {
+            //no new beat to replicate, the last one ages past maxLag and reads move to the primary
+        }
+    }
+
+    public boolean isReplicaAvailable() {
+        return System.currentTimeMillis() - replicatedBeat <= maxLagMillis;
+    }
+
+    public double lagSeconds() {
+        long beat = replicatedBeat;
+        return beat == 0 ? Double.NaN : (System.currentTimeMillis() - beat) / 1000.0;
+    }
+
+    @Override
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+}
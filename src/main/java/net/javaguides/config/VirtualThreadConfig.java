@@ -0,0 +1,77 @@
+package net.javaguides.config;
+
+import net.javaguides.filter.ConcurrencyLimitFilter;
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Opt-in virtual thread request execution, enabled with {@code employee.virtual-threads.enabled=true} on a
+ * Java 21 runtime (see the {@code jdk21} Maven profile). Tomcat runs every request, and with it the service
+ * and JDBC calls, on its own virtual thread instead of its 200 thread pool, and Spring MVC async work such as
+ * the NDJSON export uses virtual threads too.
+ *
+ * <p>With threads no longer the bound, {@link ConcurrencyLimitFilter} caps the requests in flight to about
+ * the size of the Hikari pool, so excess load waits in a fair queue and is shed with 503 after the acquire
+ * timeout instead of piling up on connection checkout. The limit defaults to the Hikari pool size and can be
+ * set apart from it with {@code employee.virtual-threads.max-concurrent-requests}. The long-running async
+ * endpoints are left out: an async request keeps its permit until it completes, so a few open event streams,
+ * long-polls or exports would otherwise take every permit and turn all other requests away.
+ */
+@Configuration
+@ConditionalOnProperty(name = "employee.virtual-threads.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    //event streams and long-polls hold no connection while they wait, an export holds one for up to
+    //employee.export.timeout and waits for it at checkout like any request beyond the pool size
+    static final List<String> UNLIMITED_PATHS = List.of(
+            "/api/employees/events",
+            "/api/employees/changes",
+            "/api/employees/export",
+            "/api/reactive/employees/export");
+
+    @Bean
+    public ExecutorService virtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("employee.virtual-threads.enabled needs Java 21 or later, running on "
+                    + Runtime.version(), e);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not create the virtual thread executor", e);
+        }
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadProtocolHandlerCustomizer(ExecutorService virtualThreadExecutor) {
+        return protocolHandler -> protocolHandler.setExecutor(virtualThreadExecutor);
+    }
+
+    //takes the place of Boot's pooled applicationTaskExecutor, which Spring MVC uses for async requests
+    @Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    public AsyncTaskExecutor applicationTaskExecutor(ExecutorService virtualThreadExecutor) {
+        return new TaskExecutorAdapter(virtualThreadExecutor);
+    }
+
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(
+            @Value("${employee.virtual-threads.max-concurrent-requests:${spring.datasource.hikari.maximum-pool-size:10}}") int maxConcurrentRequests,
+            @Value("${employee.virtual-threads.acquire-timeout:5s}") Duration acquireTimeout) {
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration =
+                new FilterRegistrationBean<>(new ConcurrencyLimitFilter(maxConcurrentRequests, acquireTimeout, UNLIMITED_PATHS));
+        registration.addUrlPatterns("/api/*");
+        return registration;
+    }
+}
@@ -1,58 +1,381 @@
 package net.javaguides.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.javaguides.dto.EmployeePage;
+import net.javaguides.dto.EmployeeSummary;
+import net.javaguides.dto.WriteStatus;
 import net.javaguides.model.Employee;
+import net.javaguides.model.EmployeeChange;
 import net.javaguides.service.EmployeeService;
+import net.javaguides.service.impl.EmployeeChangeBroadcaster;
+import net.javaguides.service.impl.EmployeeChangeFeed;
+import net.javaguides.service.impl.EmployeePageCache;
+import net.javaguides.service.impl.EmployeeWriteBehindQueue;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.data.domain.Slice;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/employees")
 public class EmployeeControler {
 
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    static final String HAS_NEXT_HEADER = "X-Has-Next";
+    static final String WRITES_PATH = "/api/employees/writes/";
+    static final int MAX_CHANGES = 1000;
+    static final long MAX_CHANGES_WAIT_SECONDS = 60;
+    static final MediaType SMILE = MediaType.valueOf("application/x-jackson-smile");
+    //expected by a conditional write when no If-Match tag can match, versions start at 0
+    private static final Long NO_VERSION = -1L;
+
     private final EmployeeService employeeService;
+    private final EmployeeWriteBehindQueue writeBehindQueue;
+    private final EmployeeChangeFeed changeFeed;
+    private final EmployeeChangeBroadcaster changeBroadcaster;
+    private final EmployeePageCache pageCache;
+    private final ObjectMapper objectMapper;
+    private final Duration exportTimeout;
 
-    public EmployeeControler(EmployeeService employeeService) {
+    public EmployeeControler(EmployeeService employeeService, EmployeeWriteBehindQueue writeBehindQueue,
+                             EmployeeChangeFeed changeFeed, EmployeeChangeBroadcaster changeBroadcaster,
+                             EmployeePageCache pageCache, ObjectMapper objectMapper,
+                             @Value("${employee.export.timeout:1h}") Duration exportTimeout) {
         this.employeeService = employeeService;
+        this.writeBehindQueue = writeBehindQueue;
+        this.changeFeed = changeFeed;
+        this.changeBroadcaster = changeBroadcaster;
+        this.pageCache = pageCache;
+        this.objectMapper = objectMapper;
+        this.exportTimeout = exportTimeout;
     }
 
+    //In write-behind mode the create is queued and answered with 202 and the status to poll
     @PostMapping
+    public ResponseEntity<Object> createEmployee(@RequestBody Employee employee) {
+        if (writeBehindQueue.isEnabled()) {
+            return accepted(writeBehindQueue.submitCreate(employee));
+        }
+        return ResponseEntity.status(HttpStatus.CREATED).body(employeeService.saveEmployee(employee));
+    }
+
+    @PostMapping("/batch")
     @ResponseStatus(HttpStatus.CREATED)
-    public Employee createEmployee(@RequestBody Employee employee) {
-        return employeeService.saveEmployee(employee);
+    public List<Employee> createEmployees(@RequestBody List<Employee> employees) {
+        return employeeService.saveEmployees(employees);
     }
 
+    //JSON pages are answered from bytes serialized once per change. With a matching If-None-Match (or
+    //If-Modified-Since) Spring answers 304 without the database being read; gzip is sent when accepted.
+    //Smile and CBOR pages are serialized on every request
     @GetMapping
-    public List<Employee> getAllEmployees() {
-        return employeeService.getAllEmployees();
+    public ResponseEntity<?> getAllEmployees(@RequestParam(value = "afterId", required = false) Long afterId,
+                                             @RequestParam(value = "limit", defaultValue = "100") int limit,
+                                             @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                                             @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        if (!prefersJson(accept)) {
+            EmployeePage page = employeeService.getEmployeesPage(afterId, limit);
+
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (page.getNextCursor() != null) {
+                response.header(NEXT_CURSOR_HEADER, String.valueOf(page.getNextCursor()));
+            }
+            return response.body(page.getEmployees());
+        }
+
+        EmployeePageCache.CachedPage page = pageCache.getPage(afterId, limit);
+        boolean gzip = page.getGzip() != null && acceptsGzip(acceptEncoding);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .cacheControl(pageCache.getCacheControl())
+                .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING)
+                .lastModified(page.getLastModified())
+                //each encoding is its own representation with its own strong entity tag
+                .eTag(gzip ? page.getETag() + "-gzip" : page.getETag());
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, String.valueOf(page.getNextCursor()));
+        }
+        return response.body(gzip ? page.getGzip() : page.getJson());
     }
 
+    //Resolves all ids with one IN query per 1000 ids, in request order; unknown ids are left out
+    @GetMapping(params = "ids")
+    public List<Employee> getEmployeesByIds(@RequestParam("ids") List<Long> employeeIds) {
+        return employeeService.getEmployeesByIds(employeeIds);
+    }
+
+    //Same as GET ?ids= for id lists too long for a URL
+    @PostMapping("/lookup")
+    public List<Employee> lookupEmployees(@RequestBody List<Long> employeeIds) {
+        return employeeService.getEmployeesByIds(employeeIds);
+    }
+
+    //Streams every employee as one JSON document per line without materializing the table in memory. Runs
+    //async under its own timeout, long enough for the whole table, the other async endpoints keep the default
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public WebAsyncTask<Void> exportEmployees(HttpServletResponse response) {
+        return new WebAsyncTask<>(exportTimeout.toMillis(), () -> {
+            response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+            try (JsonGenerator generator = objectMapper.createGenerator(response.getOutputStream())) {
+                generator.setRootValueSeparator(null);
+                employeeService.exportEmployees(employee -> {
+                    try {
+                        generator.writeObject(employee);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+            return null;
+        });
+    }
+
+    //Creates, updates and deletes committed after the since cursor, oldest first, for consumers that follow the
+    //table incrementally; X-Next-Cursor is the since of the next call. With wait (seconds) an empty answer is
+    //held back until a change arrives or the wait is over
+    @GetMapping("/changes")
+    public CompletableFuture<ResponseEntity<List<EmployeeChange>>> getChanges(@RequestParam(value = "since", defaultValue = "0") long since,
+                                                                             @RequestParam(value = "limit", defaultValue = "100") int limit,
+                                                                             @RequestParam(value = "wait", defaultValue = "0") long waitSeconds) {
+        int changesLimit = Math.max(1, Math.min(limit, MAX_CHANGES));
+        Duration wait = Duration.ofSeconds(Math.max(0, Math.min(waitSeconds, MAX_CHANGES_WAIT_SECONDS)));
+        return changeFeed.awaitChangesSince(since, changesLimit, wait)
+                .thenApply(changes -> ResponseEntity.ok()
+                        .header(NEXT_CURSOR_HEADER, String.valueOf(changes.isEmpty() ? since : changes.get(changes.size() - 1).getId()))
+                        .body(changes));
+    }
+
+    //Server-sent events (created, updated, deleted) for every change committed from now on. A reconnect with
+    //Last-Event-ID resumes after that event while this instance still buffers it, otherwise it starts with a
+    //resync event
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamChanges(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return changeBroadcaster.subscribe(lastEventId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, "1")
+                        .build());
+    }
+
+    //Exact (or with prefix=true, prefix) name search returning id, names and email only
+    @GetMapping("/by-name")
+    public ResponseEntity<List<EmployeeSummary>> searchEmployeesByName(@RequestParam("firstName") String firstName,
+                                                                       @RequestParam(value = "lastName", required = false) String lastName,
+                                                                       @RequestParam(value = "prefix", defaultValue = "false") boolean prefix,
+                                                                       @RequestParam(value = "page", defaultValue = "0") int page,
+                                                                       @RequestParam(value = "size", defaultValue = "20") int size) {
+        Slice<EmployeeSummary> employees = employeeService.searchEmployeesByName(firstName, lastName, prefix, page, size);
+        return ResponseEntity.ok()
+                .header(HAS_NEXT_HEADER, String.valueOf(employees.hasNext()))
+                .body(employees.getContent());
+    }
+
+    //Fuzzy search over names and email served from the in-memory index, best matches first
+    @GetMapping("/search")
+    public List<EmployeeSummary> searchEmployees(@RequestParam("q") String query,
+                                                 @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        return employeeService.searchEmployees(query, limit);
+    }
+
+    //With a matching If-None-Match Spring answers 304 from the ETag without writing the body
     @GetMapping("{id}")
     public ResponseEntity<Employee> getEmployeeById(@PathVariable("id") Long id) {
         return employeeService.getEmployeeById(id)
-                .map(ResponseEntity::ok)
+                .map(employee -> withETag(ResponseEntity.ok(), employee).body(employee))
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
+    //In write-behind mode the update is queued after the existence and If-Match checks and answered with 202;
+    //a queued update writes only the fields it carries, like PATCH
     @PutMapping("{id}")
-    public ResponseEntity<Employee> updateEmployee(@PathVariable("id") Long employeeId, @RequestBody Employee employee) {
+    public ResponseEntity<Object> updateEmployee(@PathVariable("id") Long employeeId, @RequestBody Employee employee,
+                                                   @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         return employeeService.getEmployeeById(employeeId)
                 .map(bdEmployee -> {
-                    bdEmployee.setFirstName(employee.getFirstName());
-                    bdEmployee.setLastName(employee.getLastName());
-                    bdEmployee.setEmail(employee.getEmail());
+                    if (ifMatch != null && !matchesVersion(ifMatch, bdEmployee.getVersion())) {
+                        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+                    }
+                    if (writeBehindQueue.isEnabled()) {
+                        //checked again when the update is applied, a write committed meanwhile fails it
+                        return accepted(writeBehindQueue.submitUpdate(employeeId, employee,
+                                ifMatch == null || ifMatchVersions(ifMatch) == null ? null : bdEmployee.getVersion()));
+                    }
 
-                    Employee updatedEmployee = employeeService.updateEmployee(bdEmployee);
-                    return new ResponseEntity<>(updatedEmployee, HttpStatus.OK);
+                    //bdEmployee may be the cached instance, so update a copy rather than mutating it in place.
+                    //The copy keeps the loaded version, a concurrent write in between fails the optimistic lock check
+                    Employee changedEmployee = Employee.builder()
+                            .id(bdEmployee.getId())
+                            .firstName(employee.getFirstName())
+                            .lastName(employee.getLastName())
+                            .email(employee.getEmail())
+                            .version(bdEmployee.getVersion())
+                            .build();
+
+                    Employee updatedEmployee = employeeService.updateEmployee(changedEmployee);
+                    return withETag(ResponseEntity.ok(), updatedEmployee).<Object>body(updatedEmployee);
                 })
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
+    //Outcome of a write answered with 202 in write-behind mode, kept for a few minutes after it is settled
+    @GetMapping("/writes/{ticket}")
+    public ResponseEntity<WriteStatus> getWriteStatus(@PathVariable("ticket") String ticket) {
+        return writeBehindQueue.getStatus(ticket)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    //Applies only the supplied fields with one UPDATE statement, without loading the employee first
+    @PatchMapping("{id}")
+    public ResponseEntity<Void> patchEmployee(@PathVariable("id") Long employeeId, @RequestBody Employee employee,
+                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        employee.setVersion(expectedVersion(employeeId, ifMatch));
+        if (employeeService.patchEmployee(employeeId, employee)) {
+            return ResponseEntity.noContent().build();
+        }
+        return employee.getVersion() == null ? ResponseEntity.notFound().build() : notFoundOrPreconditionFailed(employeeId);
+    }
+
     @DeleteMapping("{id}")
-    public ResponseEntity<String> deleteEmployee(@PathVariable("id") Long employeeId) {
-         employeeService.deleteEmployee(employeeId);
-         return new ResponseEntity<String>("Employee deleted successfully", HttpStatus.OK);
+    public ResponseEntity<String> deleteEmployee(@PathVariable("id") Long employeeId,
+                                                 @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long version = expectedVersion(employeeId, ifMatch);
+        if (version == null) {
+            if (!employeeService.deleteEmployee(employeeId)) {
+                return ResponseEntity.notFound().build();
+            }
+        } else if (!employeeService.deleteEmployee(employeeId, version)) {
+            return notFoundOrPreconditionFailed(employeeId);
+        }
+        return new ResponseEntity<String>("Employee deleted successfully", HttpStatus.OK);
+    }
+
+    //Deletes every listed employee with set-based DELETE ... WHERE id IN statements; unknown ids are ignored
+    @DeleteMapping(params = "ids")
+    public ResponseEntity<String> deleteEmployees(@RequestParam("ids") List<Long> employeeIds) {
+        int deleted = employeeService.deleteEmployees(employeeIds);
+        return new ResponseEntity<String>(deleted + " employees deleted successfully", HttpStatus.OK);
+    }
+
+    //A concurrent update won between reading the employee and writing it
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    public ResponseEntity<String> handleOptimisticLockingFailure(ObjectOptimisticLockingFailureException e) {
+        return new ResponseEntity<>("Employee was modified concurrently", HttpStatus.PRECONDITION_FAILED);
+    }
+
+    private <T> ResponseEntity<T> notFoundOrPreconditionFailed(Long employeeId) {
+        return employeeService.getEmployeeById(employeeId).isPresent()
+                ? ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build()
+                : ResponseEntity.notFound().build();
+    }
+
+    //503 while the write-behind queue is full, like the concurrency limit
+    private static ResponseEntity<Object> accepted(Optional<WriteStatus> status) {
+        return status.<ResponseEntity<Object>>map(accepted -> ResponseEntity.accepted()
+                        .location(URI.create(WRITES_PATH + accepted.getTicket()))
+                        .body(accepted))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, "1")
+                        .build());
+    }
+
+    //JSON unless Smile or CBOR rank higher in the Accept header; neither being acceptable ends in a 406
+    private static boolean prefersJson(String accept) {
+        if (accept == null) {
+            return true;
+        }
+        List<MediaType> mediaTypes = MediaType.parseMediaTypes(accept);
+        MediaType.sortBySpecificityAndQuality(mediaTypes);
+        for (MediaType mediaType : mediaTypes) {
+            if (mediaType.getQualityValue() == 0) {
+                continue;
+            }
+            if (mediaType.includes(MediaType.APPLICATION_JSON)) {
+                return true;
+            }
+            if (mediaType.includes(SMILE) || mediaType.includes(MediaType.APPLICATION_CBOR)) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    //gzip listed in Accept-Encoding without q=0
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length < 2 || !parts[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    private static ResponseEntity.BodyBuilder withETag(ResponseEntity.BodyBuilder response, Employee employee) {
+        return employee.getVersion() == null ? response : response.eTag(String.valueOf(employee.getVersion()));
+    }
+
+    private static boolean matchesVersion(String ifMatch, Long version) {
+        List<Long> versions = ifMatchVersions(ifMatch);
+        return versions == null || versions.contains(version);
+    }
+
+    //Version a conditional write is checked against, null without If-Match or for *. Of several listed versions
+    //it is the current one when listed; NO_VERSION, which never matches, when no listed version can
+    private Long expectedVersion(Long employeeId, String ifMatch) {
+        List<Long> versions = ifMatch == null ? null : ifMatchVersions(ifMatch);
+        if (versions == null) {
+            return null;
+        }
+        if (versions.size() <= 1) {
+            return versions.isEmpty() ? NO_VERSION : versions.get(0);
+        }
+        return employeeService.getEmployeeById(employeeId)
+                .map(Employee::getVersion)
+                .filter(versions::contains)
+                .orElse(NO_VERSION);
+    }
+
+    //Versions from the If-Match entity tags such as "3", "4", null when * is among them. Weak or unknown tags
+    //never match and are left out
+    private static List<Long> ifMatchVersions(String ifMatch) {
+        List<Long> versions = new ArrayList<>();
+        for (String tag : ifMatch.split(",")) {
+            String eTag = tag.trim();
+            if ("*".equals(eTag)) {
+                return null;
+            }
+            try {
+                versions.add(Long.valueOf(eTag.startsWith("\"") ? eTag.replace("\"", "") : eTag));
+            } catch (NumberFormatException e) {
+                //weak (W/"3") or not one of our tags
+            }
+        }
+        return versions;
     }
 }
@@ -0,0 +1,88 @@
+package net.javaguides.controller;
+
+import net.javaguides.dto.EmployeeSummary;
+import net.javaguides.model.Employee;
+import net.javaguides.service.ReactiveEmployeeService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+//Reactive variant of EmployeeControler. Tomcat's request thread is released as soon as the Mono/Flux is
+//returned and the response is written when R2DBC emits, so in-flight lookups don't each hold a thread
+@RestController
+@RequestMapping("/api/reactive/employees")
+public class ReactiveEmployeeController {
+
+    private final ReactiveEmployeeService employeeService;
+
+    public ReactiveEmployeeController(ReactiveEmployeeService employeeService) {
+        this.employeeService = employeeService;
+    }
+
+    @GetMapping
+    public Mono<ResponseEntity<List<Employee>>> getAllEmployees(@RequestParam(value = "afterId", required = false) Long afterId,
+                                                                @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        return employeeService.getEmployeesPage(afterId, limit)
+                .map(page -> {
+                    ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+                    if (page.getNextCursor() != null) {
+                        response.header(EmployeeControler.NEXT_CURSOR_HEADER, String.valueOf(page.getNextCursor()));
+                    }
+                    return response.body(page.getEmployees());
+                });
+    }
+
+    //One JSON document per line, the next rows are only requested from the database once the
+    //previous ones have been written to a slow client
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Employee> exportEmployees() {
+        return employeeService.getAllEmployees();
+    }
+
+    @GetMapping(params = "email")
+    public Mono<ResponseEntity<Employee>> getEmployeeByEmail(@RequestParam("email") String email) {
+        return employeeService.getEmployeeByEmail(email)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping(params = {"firstName", "lastName"})
+    public Flux<Employee> getEmployeesByName(@RequestParam("firstName") String firstName,
+                                             @RequestParam("lastName") String lastName) {
+        return employeeService.getEmployeesByName(firstName, lastName);
+    }
+
+    @GetMapping("/by-name")
+    public Mono<ResponseEntity<List<EmployeeSummary>>> searchEmployeesByName(@RequestParam("firstName") String firstName,
+                                                                             @RequestParam(value = "lastName", required = false) String lastName,
+                                                                             @RequestParam(value = "prefix", defaultValue = "false") boolean prefix,
+                                                                             @RequestParam(value = "page", defaultValue = "0") int page,
+                                                                             @RequestParam(value = "size", defaultValue = "20") int size) {
+        return employeeService.searchEmployeesByName(firstName, lastName, prefix, page, size)
+                .map(employees -> ResponseEntity.ok()
+                        .header(EmployeeControler.HAS_NEXT_HEADER, String.valueOf(employees.hasNext()))
+                        .body(employees.getContent()));
+    }
+
+    @GetMapping("{id}")
+    public Mono<ResponseEntity<Employee>> getEmployeeById(@PathVariable("id") Long id) {
+        return employeeService.getEmployeeById(id)
+                .map(employee -> employee.getVersion() == null
+                        ? ResponseEntity.ok(employee)
+                        : ResponseEntity.ok().eTag(String.valueOf(employee.getVersion())).body(employee))
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    @DeleteMapping("{id}")
+    public Mono<ResponseEntity<String>> deleteEmployee(@PathVariable("id") Long employeeId) {
+        return employeeService.deleteEmployee(employeeId)
+                .map(deleted -> deleted
+                        ? new ResponseEntity<>("Employee deleted successfully", HttpStatus.OK)
+                        : ResponseEntity.notFound().build());
+    }
+}
@@ -0,0 +1,17 @@
+package net.javaguides.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import net.javaguides.model.Employee;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class EmployeePage {
+
+    private final List<Employee> employees;
+
+    //id to pass as afterId to fetch the next page, null when this is the last page
+    private final Long nextCursor;
+}
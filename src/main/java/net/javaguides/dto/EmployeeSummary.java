@@ -0,0 +1,14 @@
+package net.javaguides.dto;
+
+//Read-only view of an employee for search results, filled straight from the selected columns
+//so no entity is hydrated or snapshotted for dirty checking
+public interface EmployeeSummary {
+
+    Long getId();
+
+    String getFirstName();
+
+    String getLastName();
+
+    String getEmail();
+}
@@ -0,0 +1,34 @@
+package net.javaguides.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+//Outcome of a create or update accepted by the write-behind queue, polled at /api/employees/writes/{ticket}
+@Getter
+@AllArgsConstructor
+public class WriteStatus {
+
+    public enum State { PENDING, COMMITTED, FAILED }
+
+    private final String ticket;
+
+    private final State state;
+
+    //id of the created or updated employee once committed
+    private final Long employeeId;
+
+    //why the write was rejected, only set when it failed
+    private final String message;
+
+    public static WriteStatus pending(String ticket) {
+        return new WriteStatus(ticket, State.PENDING, null, null);
+    }
+
+    public static WriteStatus committed(String ticket, Long employeeId) {
+        return new WriteStatus(ticket, State.COMMITTED, employeeId, null);
+    }
+
+    public static WriteStatus failed(String ticket, String message) {
+        return new WriteStatus(ticket, State.FAILED, null, message);
+    }
+}
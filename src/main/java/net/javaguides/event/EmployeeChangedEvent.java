@@ -0,0 +1,39 @@
+package net.javaguides.event;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import net.javaguides.model.Employee;
+
+/**
+ * Published by the employee service for every create, update and delete, so in-process views of the
+ * employee table (search index, caches, change feeds) can follow writes without querying the database.
+ */
+@Getter
+@ToString
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class EmployeeChangedEvent {
+
+    public enum Type { CREATED, UPDATED, DELETED }
+
+    private final Type type;
+
+    private final Long employeeId;
+
+    //state after the change, null for deletes. Partial updates only carry the fields they changed,
+    //the others are null
+    private final Employee employee;
+
+    public static EmployeeChangedEvent created(Employee employee) {
+        return new EmployeeChangedEvent(Type.CREATED, employee.getId(), employee);
+    }
+
+    public static EmployeeChangedEvent updated(Long employeeId, Employee employee) {
+        return new EmployeeChangedEvent(Type.UPDATED, employeeId, employee);
+    }
+
+    public static EmployeeChangedEvent deleted(Long employeeId) {
+        return new EmployeeChangedEvent(Type.DELETED, employeeId, null);
+    }
+}
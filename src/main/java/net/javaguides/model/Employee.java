@@ -1,6 +1,10 @@
 package net.javaguides.model;
 
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.DynamicUpdate;
 
 import javax.persistence.*;
 
@@ -12,11 +16,20 @@ import javax.persistence.*;
 @ToString
 @Builder
 @Entity
-@Table(name = "employee")
+@DynamicUpdate
+//second-level cached by id; read-write keeps the cache consistent with concurrent updates through soft locks
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@Table(name = "employee", indexes = {
+        @Index(name = "uk_employee_email", columnList = "email", unique = true),
+        @Index(name = "idx_employee_name", columnList = "fist_name, last_name")
+})
 public class Employee {
 
+    //pooled sequence instead of IDENTITY so Hibernate can batch inserts; on MySQL it is backed by a table
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "employee_seq")
+    @SequenceGenerator(name = "employee_seq", sequenceName = "employee_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "fist_name", nullable = false)
@@ -27,4 +40,10 @@ public class Employee {
 
     @Column(nullable = false)
     private String email;
+
+    //optimistic locking, also exposed to clients as the ETag of the employee
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
 }
@@ -0,0 +1,56 @@
+package net.javaguides.model;
+
+import lombok.*;
+import net.javaguides.event.EmployeeChangedEvent;
+
+import javax.persistence.*;
+import java.time.Instant;
+
+//Outbox row written in the transaction of every employee create, update and delete, read back by
+//GET /api/employees/changes. Partial updates only carry the fields they changed, deletes none
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+@Builder
+@Entity
+@Table(name = "employee_change", indexes = @Index(name = "idx_employee_change_changed_at", columnList = "changed_at"))
+public class EmployeeChange {
+
+    //auto increment, taken under the EmployeeChangeLock row so ids follow commit order across application
+    //instances; also the consumers' cursor
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private EmployeeChangedEvent.Type type;
+
+    @Column(name = "employee_id", nullable = false)
+    private Long employeeId;
+
+    @Column(name = "first_name")
+    private String firstName;
+
+    @Column(name = "last_name")
+    private String lastName;
+
+    private String email;
+
+    @Column(name = "changed_at", nullable = false)
+    private Instant changedAt;
+
+    public static EmployeeChange of(EmployeeChangedEvent event, Instant changedAt) {
+        Employee employee = event.getEmployee();
+        return EmployeeChange.builder()
+                .type(event.getType())
+                .employeeId(event.getEmployeeId())
+                .firstName(employee == null ? null : employee.getFirstName())
+                .lastName(employee == null ? null : employee.getLastName())
+                .email(employee == null ? null : employee.getEmail())
+                .changedAt(changedAt)
+                .build();
+    }
+}
@@ -0,0 +1,24 @@
+package net.javaguides.model;
+
+import lombok.*;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+//The single row every employee_change insert locks first and holds until its transaction ends, so
+//change ids are handed out in commit order. Created at startup by EmployeeChangeFeed
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+@Entity
+@Table(name = "employee_change_lock")
+public class EmployeeChangeLock {
+
+    public static final int ID = 1;
+
+    @Id
+    private Integer id;
+}
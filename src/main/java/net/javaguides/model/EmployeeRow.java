@@ -0,0 +1,40 @@
+package net.javaguides.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+//The employee table as read by the reactive R2DBC repository. It can't reuse Employee: Spring Data JPA
+//claims every repository of an @Entity type
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+@Builder
+@Table("employee")
+public class EmployeeRow {
+
+    @Id
+    private Long id;
+
+    @Column("fist_name")
+    private String firstName;
+
+    private String lastName;
+
+    private String email;
+
+    private Long version;
+
+    public Employee toEmployee() {
+        return Employee.builder()
+                .id(id)
+                .firstName(firstName)
+                .lastName(lastName)
+                .email(email)
+                .version(version)
+                .build();
+    }
+}
@@ -0,0 +1,19 @@
+package net.javaguides.repository;
+
+import net.javaguides.model.EmployeeChangeLock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import java.util.Optional;
+
+@Repository
+public interface EmployeeChangeLockRepository extends JpaRepository<EmployeeChangeLock, Integer> {
+
+     //SELECT ... FOR UPDATE of the lock row, held until the caller's transaction commits or rolls back
+     @Lock(LockModeType.PESSIMISTIC_WRITE)
+     @Query("select l from EmployeeChangeLock l where l.id = " + EmployeeChangeLock.ID)
+     Optional<EmployeeChangeLock> lockChanges();
+}
@@ -0,0 +1,27 @@
+package net.javaguides.repository;
+
+import net.javaguides.model.EmployeeChange;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface EmployeeChangeRepository extends JpaRepository<EmployeeChange, Long> {
+
+     //Changes after the since id, oldest first. Ids follow commit order, nothing below them can still appear
+     @Query("select c from EmployeeChange c where c.id > :since order by c.id")
+     List<EmployeeChange> findSince(@Param("since") long since, Pageable pageable);
+
+     //Purges changes older than the retention, returns the number of deleted rows
+     @Transactional
+     @Modifying
+     @Query("delete from EmployeeChange c where c.changedAt < :before")
+     int deleteChangedBefore(@Param("before") Instant before);
+}
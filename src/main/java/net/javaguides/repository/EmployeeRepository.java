@@ -1,25 +1,68 @@
 package net.javaguides.repository;
 
+import net.javaguides.dto.EmployeeSummary;
 import net.javaguides.model.Employee;
 import org.springframework.context.annotation.Primary;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 @Repository
-public interface EmployeeRepository extends JpaRepository<Employee, Long> {
+public interface EmployeeRepository extends JpaRepository<Employee, Long>, EmployeeWriteRepository {
+
+     //By-id reads fill the employee cache, so on their own they run in a read-write transaction, which keeps
+     //them on the primary instead of a read replica that may lag behind. Inside a caller's read-only
+     //transaction they join it as before
+     @Override
+     @Transactional
+     Optional<Employee> findById(Long id);
+
+     @Override
+     @Transactional
+     List<Employee> findAllById(Iterable<Long> ids);
 
+     //The cacheable finders keep their results in the query cache, which drops them whenever the employee
+     //table is written through Hibernate. The native finders are not cached, Hibernate can't tell which
+     //tables they read
+     @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
      Optional<Employee> findByEmail(String email);
 
+     //Returns which of the given emails are already taken, in one set-based query
+     @Query("select e.email from Employee e where e.email in :emails")
+     List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+     //Returns which of the given ids exist, in one set-based query
+     @Query("select e.id from Employee e where e.id in :ids")
+     List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+     //Streams every stored email, used to warm up the email Bloom filter at startup
+     @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+     @Query("select e.email from Employee e")
+     Stream<String> streamAllEmails();
+
+     //The four finders below are kept as query style examples, searches should use findByName
      //Define custom query using JPQL with index parameters
+     @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
      @Query("select  e  from Employee e where e.firstName = ?1 and e.lastName = ?2")
      List<Employee> findByJPQL(String fistName, String lastName);
 
      //Define custom query using JPQL with named parameters
+     @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
      @Query("select  e  from Employee e where e.firstName =:firstName and e.lastName =:lastName")
      List<Employee> findByJPQLNamedParams(@Param("firstName") String fistName, @Param("lastName") String lastName);
 
@@ -31,5 +74,29 @@ public interface EmployeeRepository extends JpaRepository<Employee, Long> {
      @Query(value = "select * from employee e where e.fist_name =:firstName and e.last_name =:lastName", nativeQuery = true)
      List<Employee> findByNativeSQLNamedParams(@Param("firstName") String firstName, @Param("lastName") String lastName);
 
+     //Name search served by the (fist_name, last_name) index. Both parameters are LIKE patterns escaped with '!':
+     //a plain value matches exactly, a trailing % matches a prefix. Selects only the projected columns and
+     //fetches one extra row for the Slice instead of running a count query
+     @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+     @Query("select e.id as id, e.firstName as firstName, e.lastName as lastName, e.email as email from Employee e " +
+             "where e.firstName like :firstName escape '!' and e.lastName like :lastName escape '!' " +
+             "order by e.firstName, e.lastName, e.id")
+     Slice<EmployeeSummary> findByName(@Param("firstName") String firstName, @Param("lastName") String lastName,
+                                       Pageable pageable);
+
+     //Keyset pagination: seeks past the last seen id on the primary key index instead of skipping OFFSET rows
+     @Query("select e from Employee e where e.id > :afterId order by e.id")
+     List<Employee> findPageAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+     //Streams id, names and email of every employee without creating entities, used to build the search index
+     @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+     @Query("select e.id as id, e.firstName as firstName, e.lastName as lastName, e.email as email from Employee e")
+     Stream<EmployeeSummary> streamAllSummaries();
+
+     //Streams the whole table ordered by id; the fetch size makes the driver pull rows in chunks
+     //instead of buffering the full result. Must be consumed inside a transaction and closed.
+     @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READONLY, value = "true")})
+     @Query("select e from Employee e order by e.id")
+     Stream<Employee> streamAll();
 
 }
@@ -0,0 +1,20 @@
+package net.javaguides.repository;
+
+import java.util.Collection;
+
+//Single-statement writes of EmployeeRepository, see EmployeeWriteRepositoryImpl
+public interface EmployeeWriteRepository {
+
+     //Partial update in a single statement, null parameters keep the current column value.
+     //A non null version must match the stored one. Returns the number of updated rows,
+     //0 when no employee has the id (or the version did not match)
+     int patchEmployee(Long id, String firstName, String lastName, String email, Long version);
+
+     //Set-based deletes that skip loading the entities first, return the number of deleted rows
+     int deleteEmployeeById(Long id);
+
+     int deleteEmployeesByIds(Collection<Long> ids);
+
+     //Deletes the employee only if it still has the given version, returns the number of deleted rows
+     int deleteByIdAndVersion(Long id, Long version);
+}
@@ -0,0 +1,126 @@
+package net.javaguides.repository;
+
+import net.javaguides.model.Employee;
+import org.hibernate.cache.spi.CacheImplementor;
+import org.hibernate.cache.spi.TimestampsCache;
+import org.hibernate.engine.jdbc.spi.JdbcCoordinator;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Updates and deletes employees by id with one SQL statement each, without loading them first. Run as JPQL
+ * bulk statements, Hibernate would drop the whole Employee region of the second-level cache with every one
+ * of them. These run as plain SQL instead, prepared through the session so they are logged and counted like
+ * its own statements, and evict only the employees they name: before the statement and again after the
+ * transaction, so a read in between can't leave the old row cached. Cached query results over the employee
+ * table are invalidated the way Hibernate does for any write to it.
+ */
+public class EmployeeWriteRepositoryImpl implements EmployeeWriteRepository {
+
+    private final EntityManager entityManager;
+
+    public EmployeeWriteRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    @Transactional
+    public int patchEmployee(Long id, String firstName, String lastName, String email, Long version) {
+        StringBuilder sql = new StringBuilder("update employee set ");
+        List<Object> parameters = new ArrayList<>();
+        set(sql, parameters, "fist_name", firstName);
+        set(sql, parameters, "last_name", lastName);
+        set(sql, parameters, "email", email);
+        sql.append("version = version + 1 where id = ?");
+        parameters.add(id);
+        return execute(withVersion(sql, parameters, version), List.of(id), parameters);
+    }
+
+    @Override
+    @Transactional
+    public int deleteEmployeeById(Long id) {
+        return execute("delete from employee where id = ?", List.of(id), List.of(id));
+    }
+
+    @Override
+    @Transactional
+    public int deleteEmployeesByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        String sql = "delete from employee where id in (" + String.join(", ", Collections.nCopies(ids.size(), "?")) + ")";
+        return execute(sql, ids, new ArrayList<>(ids));
+    }
+
+    @Override
+    @Transactional
+    public int deleteByIdAndVersion(Long id, Long version) {
+        List<Object> parameters = new ArrayList<>(List.of(id));
+        return execute(withVersion(new StringBuilder("delete from employee where id = ?"), parameters, version),
+                List.of(id), parameters);
+    }
+
+    private static void set(StringBuilder sql, List<Object> parameters, String column, String value) {
+        if (value != null) {
+            sql.append(column).append(" = ?, ");
+            parameters.add(value);
+        }
+    }
+
+    private static String withVersion(StringBuilder sql, List<Object> parameters, Long version) {
+        if (version != null) {
+            sql.append(" and version = ?");
+            parameters.add(version);
+        }
+        return sql.toString();
+    }
+
+    //like a bulk statement, changes pending in the session are flushed first and the session is cleared after
+    private int execute(String sql, Collection<Long> employeeIds, List<Object> parameters) {
+        List<Long> ids = List.copyOf(employeeIds);
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        session.flush();
+        CacheImplementor cache = session.getFactory().getCache();
+        String[] tables = (String[]) session.getFactory().getMetamodel().entityPersister(Employee.class).getQuerySpaces();
+        TimestampsCache timestamps = cache.getTimestampsCache();
+        if (timestamps != null) {
+            timestamps.preInvalidate(tables, session);
+        }
+        ids.forEach(id -> cache.evict(Employee.class, id));
+
+        int rows = executeUpdate(session, sql, parameters);
+
+        session.clear();
+        session.getActionQueue().registerProcess((success, completedSession) -> {
+            if (timestamps != null) {
+                timestamps.invalidate(tables, completedSession);
+            }
+            ids.forEach(id -> cache.evict(Employee.class, id));
+        });
+        return rows;
+    }
+
+    private static int executeUpdate(SessionImplementor session, String sql, List<Object> parameters) {
+        JdbcCoordinator jdbc = session.getJdbcCoordinator();
+        PreparedStatement statement = jdbc.getStatementPreparer().prepareStatement(sql);
+        try {
+            for (int i = 0; i < parameters.size(); i++) {
+                statement.setObject(i + 1, parameters.get(i));
+            }
+            return jdbc.getResultSetReturn().executeUpdate(statement);
+        } catch (SQLException e) {
+            throw session.getJdbcServices().getSqlExceptionHelper().convert(e, "could not bind parameters", sql);
+        } finally {
+            jdbc.getLogicalConnection().getResourceRegistry().release(statement);
+            jdbc.afterStatementExecution();
+        }
+    }
+}
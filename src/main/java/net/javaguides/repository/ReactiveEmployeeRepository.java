@@ -0,0 +1,60 @@
+package net.javaguides.repository;
+
+import net.javaguides.dto.EmployeeSummary;
+import net.javaguides.model.EmployeeChangeLock;
+import net.javaguides.model.EmployeeRow;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+//Non-blocking counterpart of EmployeeRepository over R2DBC. Queries are plain SQL on the employee table,
+//rows are only read from the driver as subscribers request them
+@Repository
+public interface ReactiveEmployeeRepository extends R2dbcRepository<EmployeeRow, Long> {
+
+     Mono<EmployeeRow> findByEmail(String email);
+
+     //Derived query counterpart of the JPQL name finders
+     Flux<EmployeeRow> findByFirstNameAndLastName(String firstName, String lastName);
+
+     //Define custom query using Native SQL with named params, R2DBC has no portable index params
+     @Query("select * from employee e where e.fist_name = :firstName and e.last_name = :lastName")
+     Flux<EmployeeRow> findByNativeSQLNamedParams(@Param("firstName") String firstName, @Param("lastName") String lastName);
+
+     //Same escaped LIKE patterns and (fist_name, last_name) index as EmployeeRepository.findByName,
+     //limit is one more than the page size to tell whether a next page exists
+     @Query("select e.id, e.fist_name, e.last_name, e.email from employee e " +
+             "where e.fist_name like :firstName escape '!' and e.last_name like :lastName escape '!' " +
+             "order by e.fist_name, e.last_name, e.id limit :limit offset :offset")
+     Flux<EmployeeSummary> findByName(@Param("firstName") String firstName, @Param("lastName") String lastName,
+                                      @Param("limit") int limit, @Param("offset") long offset);
+
+     //Keyset pagination on the primary key
+     @Query("select * from employee e where e.id > :afterId order by e.id limit :limit")
+     Flux<EmployeeRow> findPageAfter(@Param("afterId") Long afterId, @Param("limit") int limit);
+
+     //The whole table ordered by id, emitted with the subscriber's demand
+     @Query("select * from employee e order by e.id")
+     Flux<EmployeeRow> streamAll();
+
+     //Returns the number of deleted rows
+     @Modifying
+     @Query("delete from employee where id = :id")
+     Mono<Integer> deleteEmployeeById(@Param("id") Long id);
+
+     //The lock employee_change ids are taken under, held until the transaction ends; see EmployeeChangeFeed
+     @Query("select id from employee_change_lock where id = " + EmployeeChangeLock.ID + " for update")
+     Mono<Integer> lockChanges();
+
+     //Outbox row of a delete, written in the delete's transaction after lockChanges. changedAt is local
+     //time, as Hibernate writes the Instant of the JPA side
+     @Modifying
+     @Query("insert into employee_change (type, employee_id, changed_at) values ('DELETED', :employeeId, :changedAt)")
+     Mono<Integer> insertDeletedChange(@Param("employeeId") Long employeeId, @Param("changedAt") LocalDateTime changedAt);
+}
@@ -1,17 +1,40 @@
 package net.javaguides.service;
 
+import net.javaguides.dto.EmployeePage;
+import net.javaguides.dto.EmployeeSummary;
 import net.javaguides.model.Employee;
+import org.springframework.data.domain.Slice;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface EmployeeService {
 
     Employee saveEmployee(Employee employee);
+    List<Employee> saveEmployees(List<Employee> employees);
     List<Employee> getAllEmployees();
+    EmployeePage getEmployeesPage(Long afterId, int limit);
+    void exportEmployees(Consumer<Employee> consumer);
     Optional<Employee> getEmployeeById(Long id);
 
+    //found employees in the order of the given ids, unknown ids are skipped
+    List<Employee> getEmployeesByIds(List<Long> ids);
+
+    //exact match on first name (and last name when given), or prefix match on both when prefix is true
+    Slice<EmployeeSummary> searchEmployeesByName(String firstName, String lastName, boolean prefix, int page, int size);
+
+    //fuzzy substring search over names and email, best matches first
+    List<EmployeeSummary> searchEmployees(String query, int limit);
+
     Employee updateEmployee(Employee updateEmployee);
 
-    void deleteEmployee(long id);
+    //a non null patch version must match the stored version for the update to apply
+    boolean patchEmployee(Long id, Employee patch);
+
+    boolean deleteEmployee(long id);
+
+    int deleteEmployees(List<Long> ids);
+
+    boolean deleteEmployee(long id, long version);
 }
@@ -0,0 +1,24 @@
+package net.javaguides.service;
+
+import net.javaguides.dto.EmployeePage;
+import net.javaguides.dto.EmployeeSummary;
+import net.javaguides.model.Employee;
+import org.springframework.data.domain.Slice;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+//Non-blocking counterpart of EmployeeService for the reactive endpoints.
+//Creates and updates stay on EmployeeService, which owns id allocation and the email checks
+public interface ReactiveEmployeeService {
+
+    //streams every employee, rows are fetched as the subscriber requests them
+    Flux<Employee> getAllEmployees();
+    Mono<EmployeePage> getEmployeesPage(Long afterId, int limit);
+    Mono<Employee> getEmployeeById(Long id);
+    Mono<Employee> getEmployeeByEmail(String email);
+    Flux<Employee> getEmployeesByName(String firstName, String lastName);
+    Mono<Slice<EmployeeSummary>> searchEmployeesByName(String firstName, String lastName, boolean prefix, int page, int size);
+
+    //emits false when no employee has the id
+    Mono<Boolean> deleteEmployee(long id);
+}
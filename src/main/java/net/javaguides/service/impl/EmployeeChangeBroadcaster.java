@@ -0,0 +1,350 @@
+package net.javaguides.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.javaguides.event.EmployeeChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Pushes committed employee changes to server-sent event subscribers. Each change is serialized once into
+ * a slot of a ring buffer under the next sequence number; its SSE id is that number prefixed with an epoch
+ * drawn at startup, as numbering starts over in every process. A Last-Event-ID of another epoch (another
+ * instance, or this one before a restart) can't be resumed and gets a resync event. Every subscriber keeps
+ * its own cursor into the ring, so the ring is the bounded buffer of all of them: a subscriber more than
+ * the ring size behind has lost changes and is disconnected, and reconnects with the Last-Event-ID header.
+ *
+ * <p>Publishing claims a sequence number, writes the slot and marks every subscriber for sending, all
+ * without locks. The sending, which blocks on the client connection, is done by a small pool of sender
+ * threads that drain one subscriber at a time, so commits never wait for slow clients. A subscriber whose
+ * send takes longer than the send timeout is dropped and its sender replaced by an extra thread until the
+ * write returns, so clients that stopped reading can't hold up the others.
+ */
+@Component
+public class EmployeeChangeBroadcaster implements SmartLifecycle {
+
+    static final String RESYNC_EVENT = "resync";
+
+    //send states of a subscriber besides the start time of the send in progress
+    private static final long IDLE = Long.MIN_VALUE;
+    private static final long STALLED = Long.MAX_VALUE;
+
+    private final ObjectMapper objectMapper;
+    private final int maxSubscribers;
+    private final int senderThreads;
+    private final long timeoutMillis;
+    private final long sendTimeoutNanos;
+    private final Duration heartbeatInterval;
+    //base 36 without a sign, so it never contains the dash that ends it in event ids
+    private final String epoch = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+
+    private final AtomicReferenceArray<Message> ring;
+    private final int mask;
+    //sequence number of the next change
+    private final AtomicLong next = new AtomicLong();
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+
+    private volatile ThreadPoolExecutor senders;
+    //senders replaced while they are stuck in the write of a dropped subscriber, guarded by this
+    private int stalledSenders;
+    private ScheduledExecutorService heartbeats;
+
+    public EmployeeChangeBroadcaster(ObjectMapper objectMapper,
+                                     @Value("${employee.events.max-subscribers:10000}") int maxSubscribers,
+                                     @Value("${employee.events.buffer-size:1024}") int bufferSize,
+                                     @Value("${employee.events.sender-threads:4}") int senderThreads,
+                                     @Value("${employee.events.timeout:30m}") Duration timeout,
+                                     @Value("${employee.events.send-timeout:10s}") Duration sendTimeout,
+                                     @Value("${employee.events.heartbeat-interval:15s}") Duration heartbeatInterval) {
+        this.objectMapper = objectMapper;
+        this.maxSubscribers = maxSubscribers;
+        this.senderThreads = Math.max(1, senderThreads);
+        this.timeoutMillis = timeout.toMillis();
+        this.sendTimeoutNanos = sendTimeout.toNanos();
+        this.heartbeatInterval = heartbeatInterval;
+        //a power of two, so the slot of a sequence number is a mask away
+        int capacity = Integer.highestOneBit(Math.max(2, bufferSize) * 2 - 1);
+        this.ring = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+    }
+
+    //empty when the subscriber limit is reached. A Last-Event-ID still in the buffer resumes after that event,
+    //an older one or one of another epoch gets a resync event first, telling the client to reload before
+    //applying changes
+    public Optional<SseEmitter> subscribe(String lastEventId) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            return Optional.empty();
+        }
+
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Long lastSequence = sequenceOf(lastEventId);
+        long head = next.get();
+        boolean resumable = lastSequence != null && lastSequence + 1 <= head && lastSequence + 1 >= head - ring.length();
+        Subscriber subscriber = new Subscriber(emitter, resumable ? lastSequence + 1 : head, lastEventId != null && !resumable);
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+        subscribers.add(subscriber);
+        if (subscriber.hasPending()) {
+            schedule(subscriber);
+        }
+        return Optional.of(emitter);
+    }
+
+    //null unless the id was sent in this epoch
+    private Long sequenceOf(String eventId) {
+        if (eventId == null || !eventId.startsWith(epoch + "-")) {
+            return null;
+        }
+        try {
+            return Long.parseLong(eventId.substring(epoch.length() + 1));
+        } catch (NumberFormatException e) {
+            //not an id we sent
+            return null;
+        }
+    }
+
+    public int subscribers() {
+        return subscriberCount.get();
+    }
+
+    //runs on the committing thread, after the commit
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEmployeeChanged(EmployeeChangedEvent event) {
+        String data;
+        try {
+            data = objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+        long sequence = next.getAndIncrement();
+        ring.set(slot(sequence), new Message(sequence, event.getType().name().toLowerCase(Locale.ROOT), data));
+        for (Subscriber subscriber : subscribers) {
+            schedule(subscriber);
+        }
+    }
+
+    private void schedule(Subscriber subscriber) {
+        ExecutorService executor = senders;
+        if (executor != null && subscriber.scheduled.compareAndSet(false, true)) {
+            try {
+                executor.execute(() -> drain(subscriber));
+            } catch (RejectedExecutionException e) {
+                //shutting down
+            }
+        }
+    }
+
+    //only one sender drains a subscriber at a time, the scheduled flag hands it over
+    private void drain(Subscriber subscriber) {
+        while (send(subscriber)) {
+            subscriber.scheduled.set(false);
+            if (!subscriber.hasPending() || !subscriber.scheduled.compareAndSet(false, true)) {
+                return;
+            }
+        }
+    }
+
+    //false when the subscriber was disconnected
+    private boolean send(Subscriber subscriber) {
+        try {
+            if (subscriber.resync) {
+                subscriber.resync = false;
+                send(subscriber, SseEmitter.event().name(RESYNC_EVENT).data(""));
+            }
+            long cursor = subscriber.cursor;
+            for (Message message = ring.get(slot(cursor)); message != null && message.sequence >= cursor;
+                 message = ring.get(slot(cursor))) {
+                if (message.sequence > cursor) {
+                    //overwritten before it was sent, drop the slow subscriber; it reconnects and resyncs
+                    subscriber.emitter.complete();
+                    remove(subscriber);
+                    return false;
+                }
+                send(subscriber, SseEmitter.event()
+                        .id(epoch + "-" + message.sequence)
+                        .name(message.name)
+                        .data(message.data, MediaType.APPLICATION_JSON));
+                cursor++;
+            }
+            subscriber.cursor = cursor;
+            if (subscriber.heartbeat) {
+                subscriber.heartbeat = false;
+                send(subscriber, SseEmitter.event().comment(""));
+            }
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            //client gone or emitter already completed
+            remove(subscriber);
+            return false;
+        }
+    }
+
+    //blocks on the client connection, for at most the container's write timeout; dropStalled() watches it
+    private void send(Subscriber subscriber, SseEmitter.SseEventBuilder event) throws IOException {
+        subscriber.sendStarted.set(System.nanoTime());
+        long started;
+        try {
+            subscriber.emitter.send(event);
+        } finally {
+            started = subscriber.sendStarted.getAndSet(IDLE);
+            if (started == STALLED) {
+                resizeSenders(-1);
+            }
+        }
+        if (started == STALLED) {
+            //dropped while writing, the client reconnects
+            subscriber.emitter.complete();
+            throw new IOException("Dropped subscriber after a send took longer than the send timeout");
+        }
+    }
+
+    //a client that stopped reading keeps its sender in the write; drop it and add a sender thread until the
+    //write returns, so the other subscribers still get their changes
+    private void dropStalled() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : subscribers) {
+            long started = subscriber.sendStarted.get();
+            if (started != IDLE && started != STALLED && now - started > sendTimeoutNanos
+                    && subscriber.sendStarted.compareAndSet(started, STALLED)) {
+                remove(subscriber);
+                resizeSenders(1);
+            }
+        }
+    }
+
+    private synchronized void resizeSenders(int delta) {
+        stalledSenders = Math.max(0, stalledSenders + delta);
+        ThreadPoolExecutor executor = senders;
+        if (executor != null) {
+            int size = senderThreads + stalledSenders;
+            //the maximum can't go below the core size
+            if (size > executor.getMaximumPoolSize()) {
+                executor.setMaximumPoolSize(size);
+                executor.setCorePoolSize(size);
+            } else {
+                executor.setCorePoolSize(size);
+                executor.setMaximumPoolSize(size);
+            }
+        }
+    }
+
+    //keeps idle connections open through proxies and finds clients that went away
+    private void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.heartbeat = true;
+            schedule(subscriber);
+        }
+    }
+
+    private void remove(Subscriber subscriber) {
+        if (subscribers.remove(subscriber)) {
+            subscriberCount.decrementAndGet();
+        }
+    }
+
+    private int slot(long sequence) {
+        return (int) (sequence & mask);
+    }
+
+    @Override
+    public synchronized void start() {
+        stalledSenders = 0;
+        senders = new ThreadPoolExecutor(senderThreads, senderThreads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), daemonThreads("employee-events-sender"));
+        heartbeats = Executors.newSingleThreadScheduledExecutor(daemonThreads("employee-events-heartbeat"));
+        heartbeats.scheduleAtFixedRate(this::heartbeat, heartbeatInterval.toMillis(), heartbeatInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+        long checkInterval = Math.max(1, TimeUnit.NANOSECONDS.toMillis(sendTimeoutNanos) / 2);
+        heartbeats.scheduleAtFixedRate(this::dropStalled, checkInterval, checkInterval, TimeUnit.MILLISECONDS);
+    }
+
+    //ends every stream, clients reconnect to another instance or after the restart
+    @Override
+    public void stop() {
+        heartbeats.shutdownNow();
+        senders.shutdownNow();
+        senders = null;
+        for (Subscriber subscriber : subscribers) {
+            subscriber.emitter.complete();
+            remove(subscriber);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return senders != null;
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        AtomicInteger threads = new AtomicInteger();
+        return task -> {
+            Thread thread = new Thread(task, name + "-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static final class Message {
+
+        private final long sequence;
+        private final String name;
+        private final String data;
+
+        private Message(long sequence, String name, String data) {
+            this.sequence = sequence;
+            this.name = name;
+            this.data = data;
+        }
+    }
+
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        //System.nanoTime() when the send in progress started, IDLE or STALLED
+        private final AtomicLong sendStarted = new AtomicLong(IDLE);
+        //next sequence number to send, only touched by the sender holding the scheduled flag
+        private volatile long cursor;
+        private volatile boolean resync;
+        private volatile boolean heartbeat;
+
+        private Subscriber(SseEmitter emitter, long cursor, boolean resync) {
+            this.emitter = emitter;
+            this.cursor = cursor;
+            this.resync = resync;
+        }
+
+        private boolean hasPending() {
+            Message message = ring.get(slot(cursor));
+            return resync || heartbeat || (message != null && message.sequence >= cursor);
+        }
+    }
+}
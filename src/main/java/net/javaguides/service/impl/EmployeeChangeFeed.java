@@ -0,0 +1,248 @@
+package net.javaguides.service.impl;
+
+import net.javaguides.event.EmployeeChangedEvent;
+import net.javaguides.model.EmployeeChange;
+import net.javaguides.model.EmployeeChangeLock;
+import net.javaguides.repository.EmployeeChangeLockRepository;
+import net.javaguides.repository.EmployeeChangeRepository;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.context.WebServerGracefulShutdownLifecycle;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Transactional outbox of employee changes: the {@link EmployeeChangedEvent}s of a transaction are
+ * collected and written to the employee_change table just before it commits, so a change is recorded if
+ * and only if it commits. Consumers read the table incrementally from the id of the last change they have
+ * seen.
+ *
+ * <p>Ids are handed out at insert, so to keep a change from becoming visible after one with a higher id, a
+ * transaction locks the {@link EmployeeChangeLock} row before inserting its changes and holds it until it
+ * ends. A transaction taking a higher id therefore commits later, also across application instances, and a
+ * cursor never skips a change. The lock is taken once per transaction and its changes go in as one JDBC
+ * batch, which Hibernate won't do for auto increment ids, so only the commits of concurrent employee
+ * writes are serialized, for about one batched insert each. Deletes through the reactive service write
+ * their change the same way in their own R2DBC transaction.
+ *
+ * <p>Long-polling readers are answered by a background check every poll interval, which also purges
+ * changes past the retention; consumers further behind than the retention have to resync with a full read.
+ */
+@Component
+public class EmployeeChangeFeed implements SmartLifecycle {
+
+    private static final Duration PURGE_INTERVAL = Duration.ofHours(1);
+    private static final String INSERT_CHANGE = "insert into employee_change (type, employee_id, first_name, last_name, email, changed_at)"
+            + " values (?, ?, ?, ?, ?, ?)";
+
+    private final EmployeeChangeRepository changeRepository;
+    private final EmployeeChangeLockRepository lockRepository;
+    private final EntityManager entityManager;
+    private final Duration pollInterval;
+    private final Duration retention;
+
+    //guarded by this
+    private final List<Waiter> waiters = new ArrayList<>();
+
+    private ScheduledExecutorService scheduler;
+
+    public EmployeeChangeFeed(EmployeeChangeRepository changeRepository, EmployeeChangeLockRepository lockRepository,
+                              EntityManager entityManager,
+                              @Value("${employee.changes.poll-interval:200ms}") Duration pollInterval,
+                              @Value("${employee.changes.retention:7d}") Duration retention) {
+        this.changeRepository = changeRepository;
+        this.lockRepository = lockRepository;
+        this.entityManager = entityManager;
+        this.pollInterval = pollInterval;
+        this.retention = retention;
+    }
+
+    //held back until the transaction commits; events published outside a JPA transaction come from reactive
+    //deletes, which have recorded their change
+    @EventListener
+    public void record(EmployeeChangedEvent event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive() || !TransactionSynchronizationManager.isActualTransactionActive()) {
+            return;
+        }
+        PendingChanges pending = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingChanges();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.changes.add(EmployeeChange.of(event, Instant.now()));
+    }
+
+    private void insert(List<EmployeeChange> changes) {
+        lockRepository.lockChanges()
+                .orElseThrow(() -> new IllegalStateException("The employee_change_lock row is missing"));
+        //on the connection of the transaction, in the order the changes were made
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement insert = connection.prepareStatement(INSERT_CHANGE)) {
+                for (EmployeeChange change : changes) {
+                    insert.setString(1, change.getType().name());
+                    insert.setLong(2, change.getEmployeeId());
+                    insert.setString(3, change.getFirstName());
+                    insert.setString(4, change.getLastName());
+                    insert.setString(5, change.getEmail());
+                    insert.setTimestamp(6, Timestamp.from(change.getChangedAt()));
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+        });
+    }
+
+    public List<EmployeeChange> changesSince(long since, int limit) {
+        return changeRepository.findSince(since, PageRequest.of(0, limit));
+    }
+
+    //completes as soon as there are changes after since, or with an empty list once the timeout is over
+    public CompletableFuture<List<EmployeeChange>> awaitChangesSince(long since, int limit, Duration timeout) {
+        List<EmployeeChange> changes = changesSince(since, limit);
+        if (!changes.isEmpty() || timeout.isZero()) {
+            return CompletableFuture.completedFuture(changes);
+        }
+
+        Waiter waiter = new Waiter(since, limit, new CompletableFuture<>());
+        synchronized (this) {
+            waiters.add(waiter);
+        }
+        return waiter.result
+                .completeOnTimeout(List.of(), timeout.toMillis(), TimeUnit.MILLISECONDS)
+                .whenComplete((result, e) -> remove(waiter));
+    }
+
+    //one query from the oldest cursor answers every waiter that has changes
+    private void checkWaiters() {
+        List<Waiter> waiting;
+        synchronized (this) {
+            if (waiters.isEmpty()) {
+                return;
+            }
+            waiting = new ArrayList<>(waiters);
+        }
+        long since = waiting.stream().mapToLong(waiter -> waiter.since).min().getAsLong();
+        int limit = waiting.stream().mapToInt(waiter -> waiter.limit).max().getAsInt();
+        List<EmployeeChange> changes = changesSince(since, limit);
+        for (Waiter waiter : waiting) {
+            List<EmployeeChange> waiterChanges = changes.stream()
+                    .filter(change -> change.getId() > waiter.since)
+                    .limit(waiter.limit)
+                    .collect(Collectors.toList());
+            if (!waiterChanges.isEmpty()) {
+                waiter.result.complete(waiterChanges);
+            }
+        }
+    }
+
+    private void purge() {
+        changeRepository.deleteChangedBefore(Instant.now().minus(retention));
+    }
+
+    private synchronized void remove(Waiter waiter) {
+        waiters.remove(waiter);
+    }
+
+    @Override
+    public void start() {
+        if (!lockRepository.existsById(EmployeeChangeLock.ID)) {
+            try {
+                lockRepository.save(new EmployeeChangeLock(EmployeeChangeLock.ID));
+            } catch (DataIntegrityViolationException e) {
+                //created by another instance starting at the same time
+            }
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "employee-change-feed");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> runQuietly(this::checkWaiters), pollInterval.toMillis(),
+                pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(() -> runQuietly(this::purge), 0, PURGE_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        scheduler.shutdownNow();
+        scheduler = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return scheduler != null;
+    }
+
+    //started before the write-behind queue, whose journal replay records changes, and the web server
+    @Override
+    public int getPhase() {
+        return WebServerGracefulShutdownLifecycle.SMART_LIFECYCLE_PHASE - 4096;
+    }
+
+    //a failed check or purge is retried with the next run instead of cancelling the schedule
+    private static void runQuietly(Runnable task) {
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            //database unavailable, waiters time out with an empty result meanwhile
+        }
+    }
+
+    //the changes of one transaction; it follows the transaction when a nested one suspends it
+    private final class PendingChanges implements TransactionSynchronization {
+
+        private final List<EmployeeChange> changes = new ArrayList<>();
+
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResource(EmployeeChangeFeed.this);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(EmployeeChangeFeed.this, this);
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            insert(changes);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(EmployeeChangeFeed.this);
+        }
+    }
+
+    private static final class Waiter {
+
+        private final long since;
+        private final int limit;
+        private final CompletableFuture<List<EmployeeChange>> result;
+
+        private Waiter(long since, int limit, CompletableFuture<List<EmployeeChange>> result) {
+            this.since = since;
+            this.limit = limit;
+            this.result = result;
+        }
+    }
+}
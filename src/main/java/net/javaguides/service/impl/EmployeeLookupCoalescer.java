@@ -0,0 +1,124 @@
+package net.javaguides.service.impl;
+
+import net.javaguides.model.Employee;
+import net.javaguides.repository.EmployeeRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Merges concurrent single-id lookups into one {@code findAllById} query. The first caller of a batch
+ * waits out the coalescing window, then runs the query on its own thread for every id requested
+ * meanwhile; the other callers wait for its result. A batch that reaches the maximum size is queried at
+ * once by the caller that filled it. Callers of the same id share one result. Callers must not be in a
+ * transaction: only the batch query takes a connection, the waiting callers should not hold one each.
+ *
+ * <p>Trades up to one window of extra latency on a cache miss for fewer queries, so it only pays off
+ * when many lookups miss the cache at the same time. Disabled by default.
+ */
+@Component
+public class EmployeeLookupCoalescer {
+
+    private final EmployeeRepository employeeRepository;
+    private final boolean enabled;
+    private final long windowNanos;
+    private final int maxBatchSize;
+
+    //guarded by this
+    private Batch current;
+
+    public EmployeeLookupCoalescer(EmployeeRepository employeeRepository,
+                                   @Value("${employee.lookup-coalescing.enabled:false}") boolean enabled,
+                                   @Value("${employee.lookup-coalescing.window:2ms}") Duration window,
+                                   @Value("${employee.lookup-coalescing.max-batch-size:100}") int maxBatchSize) {
+        this.employeeRepository = employeeRepository;
+        this.enabled = enabled;
+        this.windowNanos = window.toNanos();
+        this.maxBatchSize = Math.max(1, Math.min(maxBatchSize, EmployeeServiceImpl.MAX_IN_CLAUSE_SIZE));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Optional<Employee> findById(Long id) {
+        Batch batch;
+        CompletableFuture<Optional<Employee>> result;
+        boolean leader = false;
+        boolean full;
+        synchronized (this) {
+            if (current == null) {
+                current = new Batch();
+                leader = true;
+            }
+            batch = current;
+            result = batch.results.computeIfAbsent(id, key -> new CompletableFuture<>());
+            full = batch.results.size() >= maxBatchSize;
+            if (full) {
+                current = null;
+            }
+        }
+
+        if (full) {
+            run(batch);
+        } else if (leader) {
+            awaitWindow(result);
+            if (detach(batch)) {
+                run(batch);
+            }
+        }
+
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+    }
+
+    //returns at the end of the window, or earlier once another caller filled the batch and queried it
+    private void awaitWindow(CompletableFuture<Optional<Employee>> result) {
+        try {
+            result.get(windowNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            //window over, or the batch query failed and join() rethrows it
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    //true when the batch was still open, i.e. it did not fill up and get queried during the window
+    private synchronized boolean detach(Batch batch) {
+        if (current != batch) {
+            return false;
+        }
+        current = null;
+        return true;
+    }
+
+    private void run(Batch batch) {
+        try {
+            List<Employee> employees = employeeRepository.findAllById(batch.results.keySet());
+            Map<Long, Employee> byId = new HashMap<>();
+            employees.forEach(employee -> byId.put(employee.getId(), employee));
+            batch.results.forEach((id, result) -> result.complete(Optional.ofNullable(byId.get(id))));
+        } catch (RuntimeException e) {
+            batch.results.values().forEach(result -> result.completeExceptionally(e));
+        }
+    }
+
+    private static final class Batch {
+
+        //written only while the batch is current, under the coalescer lock
+        private final Map<Long, CompletableFuture<Optional<Employee>>> results = new HashMap<>();
+    }
+}
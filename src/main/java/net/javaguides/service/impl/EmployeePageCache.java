@@ -0,0 +1,168 @@
+package net.javaguides.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import net.javaguides.dto.EmployeePage;
+import net.javaguides.event.EmployeeChangedEvent;
+import net.javaguides.service.EmployeeService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Pages of the employee collection kept as serialized JSON, with a gzip copy and an ETag computed from
+ * the JSON, so repeated reads of an unchanged page cost neither a query nor serialization. Every committed
+ * employee change bumps the version; a page is only served while its version, read before its query ran,
+ * is still the current one, so a page built concurrently with a change is rebuilt. Concurrent misses of one
+ * page share a single query.
+ *
+ * <p>Like the ETag, Last-Modified follows the content: a rebuilt page with the ETag of the page it replaces
+ * keeps its Last-Modified, one with new content gets the time its query started, which no earlier content
+ * of the page can have been read at. A page built without a predecessor (first read, expired or evicted)
+ * takes its build time, so instances agree to about the second; clients should revalidate with
+ * If-None-Match, which takes precedence over If-Modified-Since.
+ *
+ * <p>The version only counts changes made through this instance. The time to live bounds how long changes
+ * of other instances (or made directly in the database) go unseen; the ETag still changes with them, as
+ * it is taken from the content.
+ */
+@Component
+public class EmployeePageCache {
+
+    //like server.compression.min-response-size, smaller pages don't get shorter for compressing them
+    static final int GZIP_MIN_SIZE = 2048;
+
+    private final EmployeeService employeeService;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final CacheControl cacheControl;
+
+    private final Cache<String, CachedPage> pages;
+    private final AtomicLong version = new AtomicLong();
+
+    public EmployeePageCache(EmployeeService employeeService, PlatformTransactionManager transactionManager, ObjectMapper objectMapper,
+                             @Value("${employee.page-cache.max-size:64MB}") DataSize maxSize,
+                             @Value("${employee.page-cache.ttl:1m}") Duration ttl,
+                             @Value("${employee.page-cache.max-age:0s}") Duration maxAge) {
+        this.employeeService = employeeService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.cacheControl = maxAge.isZero() ? CacheControl.noCache() : CacheControl.maxAge(maxAge);
+        this.pages = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((String key, CachedPage page) -> page.size())
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    //the page as EmployeeService#getEmployeesPage would return it, from the cache when unchanged since
+    public CachedPage getPage(Long afterId, int limit) {
+        String key = (afterId == null ? 0L : afterId) + ":" + Math.max(1, Math.min(limit, EmployeeServiceImpl.MAX_PAGE_SIZE));
+        long current = version.get();
+        CachedPage page = pages.get(key, k -> build(afterId, limit, current, null));
+        if (page.version < current) {
+            //built before the last change, rebuilt in its place so its Last-Modified carries over when unchanged
+            page = pages.asMap().compute(key, (k, cached) ->
+                    cached != null && cached.version >= current ? cached : build(afterId, limit, current, cached));
+        }
+        return page;
+    }
+
+    //how long clients may reuse a page without revalidating it, by default not at all
+    public CacheControl getCacheControl() {
+        return cacheControl;
+    }
+
+    //runs after the commit, a page read from now on sees the change. The pages stay cached until they are
+    //rebuilt (or expire), only to compare the rebuilt content with
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEmployeeChanged(EmployeeChangedEvent event) {
+        version.incrementAndGet();
+    }
+
+    //previous is the page this one replaces, null if there is none
+    private CachedPage build(Long afterId, int limit, long version, CachedPage previous) {
+        Instant started = now();
+        //read in a read-write transaction, which keeps the query on the primary: a page read from a lagging
+        //replica after a change would be cached until the time to live runs out
+        EmployeePage page = transactionTemplate.execute(status -> employeeService.getEmployeesPage(afterId, limit));
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(page.getEmployees());
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+        String eTag = DigestUtils.md5DigestAsHex(json);
+        Instant lastModified;
+        if (previous == null) {
+            lastModified = started;
+        } else if (previous.eTag.equals(eTag)) {
+            lastModified = previous.lastModified;
+        } else {
+            //a change in the same second as the previous page still needs a later Last-Modified
+            Instant afterPrevious = previous.lastModified.plusSeconds(1);
+            lastModified = started.isAfter(afterPrevious) ? started : afterPrevious;
+        }
+        return new CachedPage(version, json, json.length < GZIP_MIN_SIZE ? null : gzip(json),
+                eTag, page.getNextCursor(), lastModified);
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return compressed.toByteArray();
+    }
+
+    //Last-Modified has whole seconds
+    private static Instant now() {
+        return Instant.now().truncatedTo(ChronoUnit.SECONDS);
+    }
+
+    @Getter
+    @AllArgsConstructor(access = AccessLevel.PRIVATE)
+    public static final class CachedPage {
+
+        @Getter(AccessLevel.NONE)
+        private final long version;
+
+        private final byte[] json;
+
+        //null when the page is too small to be worth compressing
+        private final byte[] gzip;
+
+        //strong entity tag of the JSON, unquoted
+        private final String eTag;
+
+        //as in EmployeePage, null on the last page
+        private final Long nextCursor;
+
+        private final Instant lastModified;
+
+        private int size() {
+            return json.length + (gzip == null ? 0 : gzip.length);
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package net.javaguides.service.impl;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import net.javaguides.dto.EmployeeSummary;
+import net.javaguides.event.EmployeeChangedEvent;
+import net.javaguides.model.Employee;
+import net.javaguides.repository.EmployeeRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * In-memory trigram index over employee first name, last name and email for fuzzy substring search.
+ * Every word is indexed with two leading blanks, so {@code "  j", " je", "jes", ...} for {@code jesus}:
+ * short queries still match word prefixes, prefix matches rank above mid-word matches and a typo only
+ * loses the few trigrams around it. Results are ranked by the share of query trigrams an employee has.
+ *
+ * <p>Built from the database once the application is ready, then kept current from
+ * {@link EmployeeChangedEvent}s after their transaction commits.
+ */
+@Component
+public class EmployeeSearchIndex {
+
+    private static final int GRAM_LENGTH = 3;
+    private static final String PADDING = "  ";
+
+    private final EmployeeRepository employeeRepository;
+    private final double minSimilarity;
+
+    private final Map<Long, Document> documents = new HashMap<>();
+    private final Map<String, Set<Long>> postings = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public EmployeeSearchIndex(EmployeeRepository employeeRepository,
+                               @Value("${employee.search.min-similarity:0.5}") double minSimilarity) {
+        this.employeeRepository = employeeRepository;
+        this.minSimilarity = minSimilarity;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void warmUp() {
+        try (Stream<EmployeeSummary> employees = employeeRepository.streamAllSummaries()) {
+            employees.forEach(employee -> put(employee.getId(), employee.getFirstName(), employee.getLastName(), employee.getEmail()));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEmployeeChanged(EmployeeChangedEvent event) {
+        if (event.getType() == EmployeeChangedEvent.Type.DELETED) {
+            remove(event.getEmployeeId());
+            return;
+        }
+
+        Employee employee = event.getEmployee();
+        lock.writeLock().lock();
+        try {
+            //partial updates carry only the changed fields, keep the indexed value of the others
+            Document current = documents.get(event.getEmployeeId());
+            EmployeeSummary indexed = current == null ? null : current.getEmployee();
+            put(event.getEmployeeId(),
+                    employee.getFirstName() != null || indexed == null ? employee.getFirstName() : indexed.getFirstName(),
+                    employee.getLastName() != null || indexed == null ? employee.getLastName() : indexed.getLastName(),
+                    employee.getEmail() != null || indexed == null ? employee.getEmail() : indexed.getEmail());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<EmployeeSummary> search(String query, int limit) {
+        List<String> queryGrams = new ArrayList<>(grams(query == null ? "" : query));
+        if (queryGrams.isEmpty()) {
+            return Collections.emptyList();
+        }
+        int minMatches = Math.max(1, (int) Math.ceil(queryGrams.size() * minSimilarity));
+
+        lock.readLock().lock();
+        try {
+            //an employee with minMatches of the query trigrams has at least one of the
+            //(size - minMatches + 1) rarest ones, so only those posting lists are scanned for candidates
+            queryGrams.sort(Comparator.comparingInt(gram -> postings.getOrDefault(gram, Collections.emptySet()).size()));
+            Set<Long> candidates = new HashSet<>();
+            for (String gram : queryGrams.subList(0, queryGrams.size() - minMatches + 1)) {
+                candidates.addAll(postings.getOrDefault(gram, Collections.emptySet()));
+            }
+
+            Comparator<Hit> ranking = Comparator.comparingInt(Hit::getMatches)
+                    .thenComparing(hit -> -hit.getDocument().getGrams().size())
+                    .thenComparing(hit -> -hit.getDocument().getEmployee().getId());
+            PriorityQueue<Hit> best = new PriorityQueue<>(ranking);
+            for (Long id : candidates) {
+                Document document = documents.get(id);
+                int matches = 0;
+                for (String gram : queryGrams) {
+                    if (document.getGrams().contains(gram)) {
+                        matches++;
+                    }
+                }
+                if (matches >= minMatches) {
+                    best.add(new Hit(document, matches));
+                    if (best.size() > limit) {
+                        best.poll();
+                    }
+                }
+            }
+
+            List<EmployeeSummary> results = new ArrayList<>(best.size());
+            while (!best.isEmpty()) {
+                results.add(best.poll().getDocument().getEmployee());
+            }
+            Collections.reverse(results);
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void put(Long id, String firstName, String lastName, String email) {
+        Document document = new Document(new IndexedEmployee(id, firstName, lastName, email),
+                grams(firstName, lastName, email));
+        lock.writeLock().lock();
+        try {
+            Document previous = documents.put(id, document);
+            if (previous != null) {
+                unlink(previous);
+            }
+            for (String gram : document.getGrams()) {
+                postings.computeIfAbsent(gram, key -> new HashSet<>()).add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            Document previous = documents.remove(id);
+            if (previous != null) {
+                unlink(previous);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void unlink(Document document) {
+        for (String gram : document.getGrams()) {
+            Set<Long> ids = postings.get(gram);
+            if (ids != null) {
+                ids.remove(document.getEmployee().getId());
+                if (ids.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    //trigrams of every lower-cased word; words are split on anything that is not a letter or digit
+    private static Set<String> grams(String... values) {
+        Set<String> grams = new HashSet<>();
+        for (String value : values) {
+            if (value == null) {
+                continue;
+            }
+            for (String word : value.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+                if (word.isEmpty()) {
+                    continue;
+                }
+                String padded = PADDING + word;
+                for (int i = 0; i + GRAM_LENGTH <= padded.length(); i++) {
+                    grams.add(padded.substring(i, i + GRAM_LENGTH));
+                }
+            }
+        }
+        return grams;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    static final class IndexedEmployee implements EmployeeSummary {
+
+        private final Long id;
+        private final String firstName;
+        private final String lastName;
+        private final String email;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static final class Document {
+
+        private final EmployeeSummary employee;
+        private final Set<String> grams;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static final class Hit {
+
+        private final Document document;
+        private final int matches;
+    }
+}
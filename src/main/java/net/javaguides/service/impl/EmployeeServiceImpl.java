@@ -1,53 +1,302 @@
 package net.javaguides.service.impl;
 
+import io.micrometer.core.annotation.Timed;
+import net.javaguides.config.CacheConfig;
+import net.javaguides.dto.EmployeePage;
+import net.javaguides.dto.EmployeeSummary;
+import net.javaguides.event.EmployeeChangedEvent;
 import net.javaguides.exception.ResourceNotFoundException;
 import net.javaguides.model.Employee;
 import net.javaguides.repository.EmployeeRepository;
 import net.javaguides.service.EmployeeService;
+import org.hibernate.exception.ConstraintViolationException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
+//every public method timed as employee.service, tagged with class and method
 @Service
+@Timed("employee.service")
 public class EmployeeServiceImpl implements EmployeeService {
 
+    static final int MAX_PAGE_SIZE = 1000;
+    static final int MAX_IN_CLAUSE_SIZE = 1000;
+    static final int MAX_SEARCH_RESULTS = 100;
+    static final String EMAIL_UNIQUE_INDEX = "uk_employee_email";
+
     private final EmployeeRepository employeeRepository;
+    private final EntityManager entityManager;
+    private final EmailBloomFilter emailBloomFilter;
+    private final EmployeeSearchIndex employeeSearchIndex;
+    private final EmployeeLookupCoalescer employeeLookupCoalescer;
+    private final ApplicationEventPublisher eventPublisher;
+
+    //rows flushed per JDBC batch; kept in step with hibernate.jdbc.batch_size
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize = 50;
 
-    public EmployeeServiceImpl(EmployeeRepository employeeRepository) {
+    public EmployeeServiceImpl(EmployeeRepository employeeRepository, EntityManager entityManager,
+                               EmailBloomFilter emailBloomFilter, EmployeeSearchIndex employeeSearchIndex,
+                               EmployeeLookupCoalescer employeeLookupCoalescer, ApplicationEventPublisher eventPublisher) {
         this.employeeRepository = employeeRepository;
+        this.entityManager = entityManager;
+        this.emailBloomFilter = emailBloomFilter;
+        this.employeeSearchIndex = employeeSearchIndex;
+        this.employeeLookupCoalescer = employeeLookupCoalescer;
+        this.eventPublisher = eventPublisher;
     }
 
+    //one transaction for the duplicate check and the insert, so both run on the same connection
     @Override
+    @Transactional
+    @CachePut(cacheNames = CacheConfig.EMPLOYEES_CACHE, key = "#result.id")
     public Employee saveEmployee(Employee employee) {
 
-        Optional<Employee> savedEmployee = employeeRepository.findByEmail(employee.getEmail());
-        if (savedEmployee.isPresent()) {
+        //only pay for the duplicate-check SELECT when the Bloom filter says the email may be taken,
+        //otherwise the unique index rejects the rare duplicate it could not rule out
+        if (emailBloomFilter.mightContain(employee.getEmail())
+                && employeeRepository.findByEmail(employee.getEmail()).isPresent()) {
             throw new ResourceNotFoundException("Employee already exist with email: " + employee.getEmail());
         }
 
-        return employeeRepository.save(employee);
+        try {
+            Employee savedEmployee = employeeRepository.saveAndFlush(employee);
+            emailBloomFilter.add(savedEmployee.getEmail());
+            eventPublisher.publishEvent(EmployeeChangedEvent.created(savedEmployee));
+            return savedEmployee;
+        } catch (DataIntegrityViolationException e) {
+            if (isDuplicateEmail(e)) {
+                throw new ResourceNotFoundException("Employee already exist with email: " + employee.getEmail(), e);
+            }
+            throw e;
+        }
     }
 
     @Override
+    @Transactional
+    public List<Employee> saveEmployees(List<Employee> employees) {
+
+        Set<String> emails = new LinkedHashSet<>();
+        for (Employee employee : employees) {
+            if (!emails.add(employee.getEmail())) {
+                throw new ResourceNotFoundException("Employee email repeated in batch: " + employee.getEmail());
+            }
+        }
+
+        Set<String> existingEmails = new HashSet<>();
+        for (List<String> chunk : partition(new ArrayList<>(emails), MAX_IN_CLAUSE_SIZE)) {
+            existingEmails.addAll(employeeRepository.findExistingEmails(chunk));
+        }
+        if (!existingEmails.isEmpty()) {
+            throw new ResourceNotFoundException("Employee already exist with email: " + String.join(", ", existingEmails));
+        }
+
+        //flush and clear per batch so inserts go out as JDBC batches and the persistence context stays small
+        for (List<Employee> chunk : partition(employees, batchSize)) {
+            employeeRepository.saveAll(chunk);
+            entityManager.flush();
+            entityManager.clear();
+        }
+        for (Employee employee : employees) {
+            emailBloomFilter.add(employee.getEmail());
+            eventPublisher.publishEvent(EmployeeChangedEvent.created(employee));
+        }
+        return employees;
+    }
+
+    //read-only transactions are served by the read replica when one is configured, and Hibernate
+    //skips snapshots and dirty checking for the entities they load
+    @Override
+    @Transactional(readOnly = true)
     public List<Employee> getAllEmployees() {
         return employeeRepository.findAll();
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public EmployeePage getEmployeesPage(Long afterId, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+
+        //fetch one extra row to know whether there is a next page without a count query
+        List<Employee> employees = employeeRepository.findPageAfter(afterId == null ? 0L : afterId, PageRequest.of(0, pageSize + 1));
+        if (employees.size() <= pageSize) {
+            return new EmployeePage(employees, null);
+        }
+
+        List<Employee> page = employees.subList(0, pageSize);
+        return new EmployeePage(page, page.get(pageSize - 1).getId());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportEmployees(Consumer<Employee> consumer) {
+        try (Stream<Employee> employees = employeeRepository.streamAll()) {
+            employees.forEach(employee -> {
+                consumer.accept(employee);
+                //detach once written so the persistence context does not grow with every streamed row
+                entityManager.detach(employee);
+            });
+        }
+    }
+
+    //not transactional: a coalesced lookup waiting for its batch must not hold a pooled connection, the
+    //repository query runs in its own short transaction
+    @Override
+    @Cacheable(cacheNames = CacheConfig.EMPLOYEES_CACHE, key = "#id", unless = "#result == null")
     public Optional<Employee> getEmployeeById(Long id) {
 
-        return employeeRepository.findById(id);
+        //cache misses arriving together share one findAllById query when coalescing is enabled
+        return employeeLookupCoalescer.isEnabled() ? employeeLookupCoalescer.findById(id) : employeeRepository.findById(id);
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public List<Employee> getEmployeesByIds(List<Long> ids) {
+        Map<Long, Employee> byId = new HashMap<>();
+        for (List<Long> chunk : partition(new ArrayList<>(new LinkedHashSet<>(ids)), MAX_IN_CLAUSE_SIZE)) {
+            employeeRepository.findAllById(chunk).forEach(employee -> byId.put(employee.getId(), employee));
+        }
+
+        List<Employee> employees = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Employee employee = byId.get(id);
+            if (employee != null) {
+                employees.add(employee);
+            }
+        }
+        return employees;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<EmployeeSummary> searchEmployeesByName(String firstName, String lastName, boolean prefix, int page, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        return employeeRepository.findByName(likePattern(firstName, prefix),
+                lastName == null ? "%" : likePattern(lastName, prefix),
+                PageRequest.of(Math.max(0, page), pageSize));
+    }
+
+    @Override
+    public List<EmployeeSummary> searchEmployees(String query, int limit) {
+        return employeeSearchIndex.search(query, Math.max(1, Math.min(limit, MAX_SEARCH_RESULTS)));
+    }
+
+    //evicted up front so a failed (e.g. stale version) update does not leave an outdated entry cached
+    @Override
+    @Transactional
+    @Caching(evict = @CacheEvict(cacheNames = CacheConfig.EMPLOYEES_CACHE, key = "#updateEmployee.id", beforeInvocation = true),
+            put = @CachePut(cacheNames = CacheConfig.EMPLOYEES_CACHE, key = "#result.id"))
     public Employee updateEmployee(Employee updateEmployee) {
-        return employeeRepository.save(updateEmployee);
+        Employee updatedEmployee = employeeRepository.save(updateEmployee);
+        emailBloomFilter.add(updatedEmployee.getEmail());
+        eventPublisher.publishEvent(EmployeeChangedEvent.updated(updatedEmployee.getId(), updatedEmployee));
+        return updatedEmployee;
+    }
+
+    @Override
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.EMPLOYEES_CACHE, key = "#id")
+    public boolean patchEmployee(Long id, Employee patch) {
+        try {
+            boolean updated = employeeRepository.patchEmployee(id, patch.getFirstName(), patch.getLastName(),
+                    patch.getEmail(), patch.getVersion()) > 0;
+            if (updated) {
+                if (patch.getEmail() != null) {
+                    emailBloomFilter.add(patch.getEmail());
+                }
+                eventPublisher.publishEvent(EmployeeChangedEvent.updated(id, Employee.builder()
+                        .id(id)
+                        .firstName(patch.getFirstName())
+                        .lastName(patch.getLastName())
+                        .email(patch.getEmail())
+                        .build()));
+            }
+            return updated;
+        } catch (DataIntegrityViolationException e) {
+            if (isDuplicateEmail(e)) {
+                throw new ResourceNotFoundException("Employee already exist with email: " + patch.getEmail(), e);
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.EMPLOYEES_CACHE, key = "#id")
+    public boolean deleteEmployee(long id) {
+        return published(employeeRepository.deleteEmployeeById(id) > 0, id);
     }
 
     @Override
-    public void deleteEmployee(long id) {
-        employeeRepository.deleteById(id);
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.EMPLOYEES_CACHE, allEntries = true)
+    public int deleteEmployees(List<Long> ids) {
+        int deleted = 0;
+        for (List<Long> chunk : partition(new ArrayList<>(new LinkedHashSet<>(ids)), MAX_IN_CLAUSE_SIZE)) {
+            //the DELETE only reports a count, so look up which ids exist to publish events for those alone
+            List<Long> existingIds = employeeRepository.findExistingIds(chunk);
+            if (existingIds.isEmpty()) {
+                continue;
+            }
+            deleted += employeeRepository.deleteEmployeesByIds(existingIds);
+            existingIds.forEach(id -> eventPublisher.publishEvent(EmployeeChangedEvent.deleted(id)));
+        }
+        return deleted;
+    }
+
+    @Override
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.EMPLOYEES_CACHE, key = "#id")
+    public boolean deleteEmployee(long id, long version) {
+        return published(employeeRepository.deleteByIdAndVersion(id, version) > 0, id);
+    }
+
+    private boolean published(boolean deleted, long id) {
+        if (deleted) {
+            eventPublisher.publishEvent(EmployeeChangedEvent.deleted(id));
+        }
+        return deleted;
+    }
+
+    private static boolean isDuplicateEmail(DataIntegrityViolationException e) {
+        return e.getCause() instanceof ConstraintViolationException
+                && ((ConstraintViolationException) e.getCause()).getConstraintName() != null
+                && ((ConstraintViolationException) e.getCause()).getConstraintName().toLowerCase(Locale.ROOT).contains(EMAIL_UNIQUE_INDEX);
+    }
+
+    //escapes LIKE wildcards in user input with the '!' escape character used by findByName
+    static String likePattern(String value, boolean prefix) {
+        String escaped = value.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+        return prefix ? escaped + "%" : escaped;
+    }
+
+    private static <T> List<List<T>> partition(List<T> list, int size) {
+        List<List<T>> chunks = new ArrayList<>();
+        for (int i = 0; i < list.size(); i += size) {
+            chunks.add(list.subList(i, Math.min(i + size, list.size())));
+        }
+        return chunks;
     }
 }
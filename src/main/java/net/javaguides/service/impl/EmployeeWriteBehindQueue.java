@@ -0,0 +1,407 @@
+package net.javaguides.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import net.javaguides.dto.WriteStatus;
+import net.javaguides.model.Employee;
+import net.javaguides.service.EmployeeService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.context.WebServerGracefulShutdownLifecycle;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Write-behind mode for creates and updates: writes are queued in memory and answered at once with a
+ * ticket, and a writer thread commits them in groups, one transaction per group of up to the maximum batch
+ * size or whatever arrived within the flush interval. Creates of a group go in as one JDBC batch. An update
+ * is applied like a PATCH, only the fields it carries are written; consecutive updates of the same employee
+ * without a version are merged into one, the later one winning per field, while an update with a version
+ * is applied on its own and fails once the employee has changed since. When a group fails,
+ * its writes are retried one transaction each so a single bad write (e.g. a duplicate email) only fails
+ * itself.
+ *
+ * <p>Queued writes are lost on a crash unless the journal is enabled, and reads see them only once
+ * committed. Submissions are rejected while the queue holds its capacity and when it is not running; it
+ * stops after the web server, so requests still in flight during a graceful shutdown get their writes
+ * committed. Disabled by default.
+ */
+@Slf4j
+@Component
+public class EmployeeWriteBehindQueue implements SmartLifecycle {
+
+    //statuses are kept for polling until they expire or the oldest are pushed out
+    private static final int MAX_STATUSES = 100_000;
+    private static final Duration STATUS_TTL = Duration.ofMinutes(10);
+
+    //pause before flushing again after the journal could not be rolled
+    private static final Duration FLUSH_RETRY_DELAY = Duration.ofSeconds(1);
+
+    private final EmployeeService employeeService;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final int capacity;
+    private final int maxBatchSize;
+    private final long flushIntervalNanos;
+    private final String journalDirectory;
+    private final boolean journalFsync;
+
+    private final Cache<String, WriteStatus> statuses = Caffeine.newBuilder()
+            .maximumSize(MAX_STATUSES)
+            .expireAfterWrite(STATUS_TTL)
+            .build();
+
+    private final Object lock = new Object();
+    //guarded by lock
+    private List<PendingWrite> pending = new ArrayList<>();
+    private long firstPendingNanos;
+    private WriteBehindJournal journal;
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public EmployeeWriteBehindQueue(EmployeeService employeeService, PlatformTransactionManager transactionManager,
+                                    ObjectMapper objectMapper,
+                                    @Value("${employee.write-behind.enabled:false}") boolean enabled,
+                                    @Value("${employee.write-behind.queue-capacity:10000}") int capacity,
+                                    @Value("${employee.write-behind.max-batch-size:500}") int maxBatchSize,
+                                    @Value("${employee.write-behind.flush-interval:20ms}") Duration flushInterval,
+                                    @Value("${employee.write-behind.journal-dir:}") String journalDirectory,
+                                    @Value("${employee.write-behind.journal-fsync:false}") boolean journalFsync) {
+        this.employeeService = employeeService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.capacity = Math.max(1, capacity);
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.journalDirectory = journalDirectory;
+        this.journalFsync = journalFsync;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    //empty when the queue is full or not running
+    public Optional<WriteStatus> submitCreate(Employee employee) {
+        return submit(new PendingWrite(newTicket(), null, copyOf(employee), null));
+    }
+
+    //empty when the queue is full or not running. Applied like a PATCH: with a version it fails when the
+    //employee has changed since, without one the last update queued wins
+    public Optional<WriteStatus> submitUpdate(Long employeeId, Employee employee, Long version) {
+        return submit(new PendingWrite(newTicket(), employeeId, copyOf(employee), version));
+    }
+
+    public Optional<WriteStatus> getStatus(String ticket) {
+        return Optional.ofNullable(statuses.getIfPresent(ticket));
+    }
+
+    public int pendingWrites() {
+        synchronized (lock) {
+            return pending.size();
+        }
+    }
+
+    //commits everything queued so far as one group; the writer thread calls it once per group
+    public void flush() {
+        List<PendingWrite> writes;
+        WriteBehindJournal groupJournal;
+        List<Path> segments;
+        synchronized (lock) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            //rolled first, so a journal that cannot be rolled leaves the writes queued
+            groupJournal = journal;
+            segments = groupJournal == null ? List.of() : rollJournal();
+            writes = pending;
+            pending = new ArrayList<>();
+        }
+
+        commit(writes);
+
+        if (!segments.isEmpty()) {
+            try {
+                groupJournal.delete(segments);
+            } catch (IOException e) {
+                //left for the next startup, which replays them
+            }
+        }
+    }
+
+    private Optional<WriteStatus> submit(PendingWrite write) {
+        WriteStatus status = WriteStatus.pending(write.getTicket());
+        synchronized (lock) {
+            if (!running || pending.size() >= capacity) {
+                return Optional.empty();
+            }
+            if (journal != null) {
+                try {
+                    journal.append(write);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Could not journal write " + write.getTicket(), e);
+                }
+            }
+            statuses.put(write.getTicket(), status);
+            if (pending.isEmpty()) {
+                firstPendingNanos = System.nanoTime();
+            }
+            pending.add(write);
+            if (pending.size() == maxBatchSize) {
+                lock.notifyAll();
+            }
+        }
+        return Optional.of(status);
+    }
+
+    private void commit(List<PendingWrite> writes) {
+        List<PendingWrite> creates = new ArrayList<>();
+        Map<Long, List<PendingWrite>> updates = new LinkedHashMap<>();
+        for (PendingWrite write : writes) {
+            if (write.getEmployeeId() == null) {
+                creates.add(write);
+            } else {
+                updates.computeIfAbsent(write.getEmployeeId(), id -> new ArrayList<>()).add(write);
+            }
+        }
+
+        boolean single = creates.size() + updates.size() == 1;
+        if (!commit(creates, updates, single) && !single) {
+            creates.forEach(write -> commit(List.of(write), Map.of(), true));
+            updates.forEach((id, updatesOfId) -> commit(List.of(), Map.of(id, updatesOfId), true));
+        }
+    }
+
+    //false when the transaction failed; the writes are then marked failed only if failWrites is set
+    private boolean commit(List<PendingWrite> creates, Map<Long, List<PendingWrite>> updates, boolean failWrites) {
+        try {
+            statuses.putAll(transactionTemplate.execute(transaction -> apply(creates, updates)));
+            return true;
+        } catch (RuntimeException e) {
+            if (failWrites) {
+                creates.forEach(write -> statuses.put(write.getTicket(), WriteStatus.failed(write.getTicket(), e.getMessage())));
+                updates.values().forEach(updatesOfId -> updatesOfId.forEach(write ->
+                        statuses.put(write.getTicket(), WriteStatus.failed(write.getTicket(), e.getMessage()))));
+            }
+            return false;
+        }
+    }
+
+    //joins the group transaction, so the service's events and cache evictions follow its commit
+    private Map<String, WriteStatus> apply(List<PendingWrite> creates, Map<Long, List<PendingWrite>> updates) {
+        Map<String, WriteStatus> outcomes = new HashMap<>();
+        if (!creates.isEmpty()) {
+            //fresh copies, a rolled back attempt leaves generated ids on the instances it saved
+            List<Employee> saved = employeeService.saveEmployees(creates.stream()
+                    .map(write -> copyOf(write.getEmployee()))
+                    .collect(Collectors.toList()));
+            for (int i = 0; i < creates.size(); i++) {
+                String ticket = creates.get(i).getTicket();
+                outcomes.put(ticket, WriteStatus.committed(ticket, saved.get(i).getId()));
+            }
+        }
+        updates.forEach((id, updatesOfId) -> {
+            //an update without a version followed by another one is merged into it and shares its outcome;
+            //updates with a version are checked against what is stored
+            List<String> tickets = new ArrayList<>();
+            Employee patch = null;
+            for (int i = 0; i < updatesOfId.size(); i++) {
+                PendingWrite write = updatesOfId.get(i);
+                tickets.add(write.getTicket());
+                patch = patch == null ? copyOf(write.getEmployee()) : merge(patch, write.getEmployee());
+                if (write.getVersion() == null && i + 1 < updatesOfId.size() && updatesOfId.get(i + 1).getVersion() == null) {
+                    continue;
+                }
+                patch.setVersion(write.getVersion());
+                boolean updated = employeeService.patchEmployee(id, patch);
+                String failure = write.getVersion() == null
+                        ? "Employee not found with id: " + id
+                        : "Employee not found with id: " + id + " or changed since version " + write.getVersion();
+                for (String ticket : tickets) {
+                    outcomes.put(ticket, updated ? WriteStatus.committed(ticket, id) : WriteStatus.failed(ticket, failure));
+                }
+                tickets.clear();
+                patch = null;
+            }
+        });
+        return outcomes;
+    }
+
+    private void runWriter() {
+        while (true) {
+            synchronized (lock) {
+                try {
+                    awaitGroup();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    running = false;
+                }
+                if (pending.isEmpty() && !running) {
+                    return;
+                }
+            }
+            try {
+                flush();
+            } catch (RuntimeException e) {
+                //only a journal that cannot be rolled fails the flush, and it leaves the group queued
+                log.warn("Could not flush the write-behind queue, retrying in {}", FLUSH_RETRY_DELAY, e);
+                if (!pauseAfterFailure()) {
+                    return;
+                }
+            }
+        }
+    }
+
+    //false once stopping: the writes left are in the journal, which the next start replays
+    private boolean pauseAfterFailure() {
+        synchronized (lock) {
+            if (!running) {
+                return false;
+            }
+            try {
+                TimeUnit.NANOSECONDS.timedWait(lock, FLUSH_RETRY_DELAY.toNanos());
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+                return false;
+            }
+        }
+    }
+
+    //until a full group is queued or the oldest queued write has waited out the flush interval, or stop()
+    private void awaitGroup() throws InterruptedException {
+        while (running && pending.size() < maxBatchSize) {
+            if (pending.isEmpty()) {
+                lock.wait();
+                continue;
+            }
+            long remainingNanos = firstPendingNanos + flushIntervalNanos - System.nanoTime();
+            if (remainingNanos <= 0) {
+                return;
+            }
+            TimeUnit.NANOSECONDS.timedWait(lock, remainingNanos);
+        }
+    }
+
+    private List<Path> rollJournal() {
+        try {
+            return journal.roll();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not roll the write-behind journal", e);
+        }
+    }
+
+    //replays the journal of a previous run before the first new write is accepted
+    @Override
+    public void start() {
+        synchronized (lock) {
+            if (!journalDirectory.isEmpty()) {
+                try {
+                    journal = new WriteBehindJournal(Paths.get(journalDirectory), journalFsync, objectMapper);
+                    for (PendingWrite write : journal.recover()) {
+                        statuses.put(write.getTicket(), WriteStatus.pending(write.getTicket()));
+                        if (pending.isEmpty()) {
+                            firstPendingNanos = System.nanoTime();
+                        }
+                        pending.add(write);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Could not open the write-behind journal in " + journalDirectory, e);
+                }
+            }
+            running = true;
+        }
+        writer = new Thread(this::runWriter, "employee-write-behind");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    //commits what is still queued before the connection pool shuts down
+    @Override
+    public void stop() {
+        synchronized (lock) {
+            running = false;
+            lock.notifyAll();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (lock) {
+            if (journal != null) {
+                try {
+                    journal.close();
+                } catch (IOException e) {
+                    //every write in it is committed or left for replay
+                }
+                journal = null;
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public boolean isAutoStartup() {
+        return enabled;
+    }
+
+    //started before and stopped after the web server, which stops only once in-flight requests are done
+    @Override
+    public int getPhase() {
+        return WebServerGracefulShutdownLifecycle.SMART_LIFECYCLE_PHASE - 2048;
+    }
+
+    private static String newTicket() {
+        return UUID.randomUUID().toString();
+    }
+
+    //only the client supplied fields, id and version are assigned when the write is applied
+    //the fields of later set over those of patch, null ones keep the value of patch
+    private static Employee merge(Employee patch, Employee later) {
+        if (later.getFirstName() != null) {
+            patch.setFirstName(later.getFirstName());
+        }
+        if (later.getLastName() != null) {
+            patch.setLastName(later.getLastName());
+        }
+        if (later.getEmail() != null) {
+            patch.setEmail(later.getEmail());
+        }
+        return patch;
+    }
+
+    private static Employee copyOf(Employee employee) {
+        return Employee.builder()
+                .firstName(employee.getFirstName())
+                .lastName(employee.getLastName())
+                .email(employee.getEmail())
+                .build();
+    }
+}
@@ -0,0 +1,25 @@
+package net.javaguides.service.impl;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import net.javaguides.model.Employee;
+
+//A write waiting in the write-behind queue, also the record format of its journal
+@Getter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+class PendingWrite {
+
+    private String ticket;
+
+    //employee to update, null for a create
+    private Long employeeId;
+
+    private Employee employee;
+
+    //version an update was made against (If-Match), null when it applies to whatever is stored
+    private Long version;
+}
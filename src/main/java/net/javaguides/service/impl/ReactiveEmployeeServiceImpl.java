@@ -0,0 +1,129 @@
+package net.javaguides.service.impl;
+
+import net.javaguides.config.CacheConfig;
+import net.javaguides.dto.EmployeePage;
+import net.javaguides.dto.EmployeeSummary;
+import net.javaguides.event.EmployeeChangedEvent;
+import net.javaguides.model.Employee;
+import net.javaguides.model.EmployeeRow;
+import net.javaguides.repository.ReactiveEmployeeRepository;
+import net.javaguides.service.ReactiveEmployeeService;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Service
+public class ReactiveEmployeeServiceImpl implements ReactiveEmployeeService {
+
+    private final ReactiveEmployeeRepository employeeRepository;
+    //R2DBC transactions, the JPA transaction manager is the default one
+    private final TransactionalOperator transactionalOperator;
+    private final CacheManager cacheManager;
+    private final ApplicationEventPublisher eventPublisher;
+    //Hibernate's second-level and query cache, which don't see writes made through R2DBC
+    private final org.hibernate.Cache hibernateCache;
+
+    public ReactiveEmployeeServiceImpl(ReactiveEmployeeRepository employeeRepository, TransactionalOperator transactionalOperator,
+                                       CacheManager cacheManager, ApplicationEventPublisher eventPublisher,
+                                       EntityManagerFactory entityManagerFactory) {
+        this.employeeRepository = employeeRepository;
+        this.transactionalOperator = transactionalOperator;
+        this.cacheManager = cacheManager;
+        this.eventPublisher = eventPublisher;
+        this.hibernateCache = entityManagerFactory.getCache().unwrap(org.hibernate.Cache.class);
+    }
+
+    @Override
+    public Flux<Employee> getAllEmployees() {
+        return employeeRepository.streamAll().map(EmployeeRow::toEmployee);
+    }
+
+    @Override
+    public Mono<EmployeePage> getEmployeesPage(Long afterId, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, EmployeeServiceImpl.MAX_PAGE_SIZE));
+
+        //fetch one extra row to know whether there is a next page without a count query
+        return employeeRepository.findPageAfter(afterId == null ? 0L : afterId, pageSize + 1)
+                .map(EmployeeRow::toEmployee)
+                .collectList()
+                .map(employees -> {
+                    if (employees.size() <= pageSize) {
+                        return new EmployeePage(employees, null);
+                    }
+                    List<Employee> page = employees.subList(0, pageSize);
+                    return new EmployeePage(page, page.get(pageSize - 1).getId());
+                });
+    }
+
+    //answers from the employee cache shared with EmployeeService when it has the employee
+    @Override
+    public Mono<Employee> getEmployeeById(Long id) {
+        Employee cached = employeesCache().get(id, Employee.class);
+        return cached != null ? Mono.just(cached) : employeeRepository.findById(id).map(EmployeeRow::toEmployee);
+    }
+
+    @Override
+    public Mono<Employee> getEmployeeByEmail(String email) {
+        return employeeRepository.findByEmail(email).map(EmployeeRow::toEmployee);
+    }
+
+    @Override
+    public Flux<Employee> getEmployeesByName(String firstName, String lastName) {
+        return employeeRepository.findByFirstNameAndLastName(firstName, lastName).map(EmployeeRow::toEmployee);
+    }
+
+    @Override
+    public Mono<Slice<EmployeeSummary>> searchEmployeesByName(String firstName, String lastName, boolean prefix, int page, int size) {
+        PageRequest pageRequest = PageRequest.of(Math.max(0, page), Math.max(1, Math.min(size, EmployeeServiceImpl.MAX_PAGE_SIZE)));
+        return employeeRepository.findByName(EmployeeServiceImpl.likePattern(firstName, prefix),
+                        lastName == null ? "%" : EmployeeServiceImpl.likePattern(lastName, prefix),
+                        pageRequest.getPageSize() + 1, pageRequest.getOffset())
+                .collectList()
+                .map(employees -> {
+                    boolean hasNext = employees.size() > pageRequest.getPageSize();
+                    List<EmployeeSummary> content = hasNext ? employees.subList(0, pageRequest.getPageSize()) : employees;
+                    return new SliceImpl<>(content, pageRequest, hasNext);
+                });
+    }
+
+    //records the change in the outbox in the delete's own transaction, like EmployeeChangeFeed does for JPA
+    //writes, and keeps the shared caches and the other change event listeners in step once it committed. The
+    //listeners run synchronously and may block, so they are called off the R2DBC event loop
+    @Override
+    public Mono<Boolean> deleteEmployee(long id) {
+        Mono<Boolean> delete = employeeRepository.deleteEmployeeById(id)
+                .flatMap(deletedRows -> deletedRows == 0
+                        ? Mono.just(false)
+                        : employeeRepository.lockChanges()
+                                .switchIfEmpty(Mono.error(() -> new IllegalStateException("The employee_change_lock row is missing")))
+                                .then(employeeRepository.insertDeletedChange(id, LocalDateTime.now()))
+                                .thenReturn(true));
+        return transactionalOperator.transactional(delete)
+                .publishOn(Schedulers.boundedElastic())
+                .doOnNext(deleted -> {
+                    employeesCache().evict(id);
+                    hibernateCache.evictEntityData(Employee.class, id);
+                    if (deleted) {
+                        //cached finder results may still list the employee
+                        hibernateCache.evictDefaultQueryRegion();
+                        eventPublisher.publishEvent(EmployeeChangedEvent.deleted(id));
+                    }
+                });
+    }
+
+    private Cache employeesCache() {
+        return cacheManager.getCache(CacheConfig.EMPLOYEES_CACHE);
+    }
+}
@@ -0,0 +1,126 @@
+package net.javaguides.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Append-only journal of the writes in the write-behind queue, one JSON line per write, so accepted writes
+ * survive a crash before they are committed. Writes are appended to the current segment file; the writer
+ * rolls to a new segment whenever it takes a group from the queue and deletes the rolled segments once the
+ * group has committed. Segments found at startup belong to a previous run and are replayed, which may apply
+ * a write a second time if the crash came between its commit and the deletion of its segment.
+ *
+ * <p>Not thread safe, the queue calls it under its lock.
+ */
+class WriteBehindJournal implements Closeable {
+
+    private static final String SEGMENT_PREFIX = "writes-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path directory;
+    private final boolean fsync;
+    private final ObjectMapper objectMapper;
+
+    //segments of a previous run, oldest first
+    private final List<Path> leftover;
+    //rolled segments, deleted by the next delete(...) after the writes they hold have committed
+    private final List<Path> sealed = new ArrayList<>();
+
+    private long segment;
+    private Path current;
+    private FileChannel channel;
+
+    WriteBehindJournal(Path directory, boolean fsync, ObjectMapper objectMapper) throws IOException {
+        this.directory = directory;
+        this.fsync = fsync;
+        this.objectMapper = objectMapper;
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            this.leftover = files.filter(WriteBehindJournal::isSegment)
+                    .sorted(Comparator.comparingLong(WriteBehindJournal::segmentNumber))
+                    .collect(Collectors.toList());
+        }
+        this.segment = leftover.isEmpty() ? 0 : segmentNumber(leftover.get(leftover.size() - 1));
+        open();
+    }
+
+    //writes of a previous run, oldest first. Their segments are deleted with the next rolled group
+    List<PendingWrite> recover() throws IOException {
+        List<PendingWrite> writes = new ArrayList<>();
+        for (Path path : leftover) {
+            for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+                try {
+                    writes.add(objectMapper.readValue(line, PendingWrite.class));
+                } catch (JsonProcessingException e) {
+                    //torn last line of a crashed append, that write was never acknowledged
+                }
+            }
+        }
+        sealed.addAll(leftover);
+        leftover.clear();
+        return writes;
+    }
+
+    //with fsync the write also survives a power loss, at the price of one disk flush per write
+    void append(PendingWrite write) throws IOException {
+        byte[] line = objectMapper.writeValueAsBytes(write);
+        ByteBuffer buffer = ByteBuffer.allocate(line.length + 1).put(line).put((byte) '\n').flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        if (fsync) {
+            channel.force(false);
+        }
+    }
+
+    //seals the current segment and every one sealed before it; returns them for delete(...)
+    List<Path> roll() throws IOException {
+        channel.close();
+        sealed.add(current);
+        List<Path> rolled = new ArrayList<>(sealed);
+        sealed.clear();
+        open();
+        return rolled;
+    }
+
+    void delete(List<Path> segments) throws IOException {
+        for (Path path : segments) {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void open() throws IOException {
+        segment++;
+        current = directory.resolve(SEGMENT_PREFIX + segment + SEGMENT_SUFFIX);
+        channel = FileChannel.open(current, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private static boolean isSegment(Path path) {
+        String name = path.getFileName().toString();
+        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+    }
+
+    private static long segmentNumber(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+}
@@ -0,0 +1,54 @@
+package net.javaguides.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.context.ConfigurationPropertiesAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//binds the prod profile onto the pool without opening a connection, so no MySQL is needed
+@SpringBootTest(classes = JpaConfig.class)
+@ImportAutoConfiguration(ConfigurationPropertiesAutoConfiguration.class)
+@ActiveProfiles("prod")
+public class JpaConfigTests {
+
+    @MockBean
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private HikariDataSource dataSource;
+
+    @Value("${spring.jpa.show-sql}")
+    private boolean showSql;
+
+    @DisplayName("JUnit test for the prod profile pool settings")
+    @Test
+    public void givenProdProfile_whenCreateDataSource_thenPoolSettingsApply() {
+        assertThat(dataSource.getPoolName()).isEqualTo("ems");
+        assertThat(dataSource.getMaximumPoolSize()).isEqualTo(10);
+        assertThat(dataSource.getMinimumIdle()).isEqualTo(10);
+        assertThat(dataSource.getConnectionTimeout()).isEqualTo(2000);
+        assertThat(dataSource.getMaxLifetime()).isEqualTo(1800000);
+        assertThat(dataSource.getJdbcUrl()).startsWith("jdbc:mysql:");
+    }
+
+    @DisplayName("JUnit test for the prod profile MySQL driver settings")
+    @Test
+    public void givenProdProfile_whenCreateDataSource_thenDriverSettingsApply() {
+        assertThat(dataSource.getDataSourceProperties())
+                .containsEntry("cachePrepStmts", "true")
+                .containsEntry("useServerPrepStmts", "true")
+                .containsEntry("rewriteBatchedStatements", "true")
+                .containsEntry("prepStmtCacheSize", "250");
+        assertThat(showSql).isFalse();
+    }
+}
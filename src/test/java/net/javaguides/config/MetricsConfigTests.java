@@ -0,0 +1,82 @@
+package net.javaguides.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import net.javaguides.filter.SqlStatementCountingFilter;
+import net.javaguides.model.Employee;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureMetrics
+@ActiveProfiles("h2")
+public class MetricsConfigTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @DisplayName("JUnit test for service, repository and SQL metrics recorded per request")
+    @Test
+    public void givenEmployeeRequests_whenGetMetrics_thenTimersAndCountersAreIncremented() throws Exception {
+        //given
+        List<Employee> employees = List.of(
+                Employee.builder().firstName("Jesus").lastName("Tapia").email("metrics0@hotmail.com").build(),
+                Employee.builder().firstName("Azalia").lastName("Santiago").email("metrics1@gmail.com").build());
+        mockMvc.perform(post("/api/employees/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(employees)))
+                .andExpect(status().isCreated());
+
+        //when
+        mockMvc.perform(get("/api/employees")).andExpect(status().isOk());
+
+        //then
+        assertThat(meterRegistry.get("employee.service").tag("method", "getEmployeesPage").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("spring.data.repository.invocations").tag("method", "findPageAfter").timer().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get(SqlStatementCountingFilter.METRIC_NAME).tag("uri", "/api/employees")
+                .summary().totalAmount()).isEqualTo(1);
+        assertThat(meterRegistry.get(SqlStatementCountingFilter.METRIC_NAME).tag("uri", "/api/employees/batch")
+                .summary().totalAmount()).isGreaterThan(0);
+        assertThat(meterRegistry.get("hibernate.statements").tag("status", "prepared").functionCounter().count())
+                .isGreaterThan(0);
+    }
+
+    @DisplayName("JUnit test for metrics in Prometheus format")
+    @Test
+    public void givenRunningApplication_whenScrapePrometheus_thenReturnHistogramsAndCacheMetrics() throws Exception {
+        //given
+        mockMvc.perform(get("/api/employees/{id}", 1L));
+
+        //when - then
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("employee_service_seconds_bucket{")))
+                .andExpect(content().string(containsString("http_server_requests_sql_statements_bucket{")))
+                .andExpect(content().string(containsString("cache_gets_total{cache=\"employees\"")))
+                .andExpect(content().string(containsString("hikaricp_connections_acquire_seconds")));
+    }
+}
@@ -0,0 +1,46 @@
+package net.javaguides.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasItem;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+public class PoolMetricsTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @DisplayName("JUnit test for connection pool gauges exposed through actuator")
+    @Test
+    public void givenRunningApplication_whenGetPoolMetrics_thenReturnConnectionGauges() throws Exception {
+        for (String gauge : new String[]{"hikaricp.connections.active", "hikaricp.connections.idle", "hikaricp.connections.pending"}) {
+            mockMvc.perform(get("/actuator/metrics/{name}", gauge))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.availableTags[0].tag").value("pool"));
+        }
+    }
+
+    @DisplayName("JUnit test for connection acquire latency recorded per request")
+    @Test
+    public void givenDatabaseRequest_whenGetAcquireMetric_thenReturnRecordedTimings() throws Exception {
+        //given
+        mockMvc.perform(get("/api/employees")).andExpect(status().isOk());
+
+        //when - then
+        mockMvc.perform(get("/actuator/metrics/hikaricp.connections.acquire"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.measurements[?(@.statistic == 'COUNT')].value", hasItem(greaterThan(0.0))));
+    }
+}
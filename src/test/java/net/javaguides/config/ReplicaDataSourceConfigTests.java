@@ -0,0 +1,142 @@
+package net.javaguides.config;
+
+import net.javaguides.model.Employee;
+import net.javaguides.service.EmployeeService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//two embedded H2 databases stand in for the primary and the replica; nothing replicates between them,
+//so the replica's rows and heartbeat are written by the test. Checks run only when the test calls them
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:primary;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "employee.datasource.replica.url=" + ReplicaDataSourceConfigTests.REPLICA_URL,
+        "employee.datasource.replica.username=sa",
+        "employee.datasource.replica.max-lag=5s",
+        "employee.datasource.replica.check-interval=1h"
+})
+@ActiveProfiles("h2")
+public class ReplicaDataSourceConfigTests {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:replica;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private ReplicaLagMonitor replicaLagMonitor;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    @Qualifier("dataSource")
+    private DataSource primaryDataSource;
+
+    private JdbcTemplate primary;
+    private JdbcTemplate replica;
+
+    @BeforeEach
+    public void setup() {
+        cacheManager.getCache(CacheConfig.EMPLOYEES_CACHE).clear();
+        entityManagerFactory.getCache().evictAll();
+        primary = new JdbcTemplate(primaryDataSource);
+        replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+
+        String heartbeatTable = "create table if not exists replica_heartbeat (id int primary key, beat_at bigint not null)";
+        primary.execute(heartbeatTable);
+        replica.execute(heartbeatTable);
+        replica.execute("create table if not exists employee (id bigint primary key, fist_name varchar(255) not null, " +
+                "last_name varchar(255) not null, email varchar(255) not null, version bigint default 0 not null)");
+        replica.update("merge into employee (id, fist_name, last_name, email, version) key (id) values (9001, 'Ramesh', 'Fadatare', 'ramesh@replica.com', 0)");
+    }
+
+    @DisplayName("JUnit test for read-only calls served by an up to date replica")
+    @Test
+    public void givenReplicaInSync_whenReadAndWrite_thenReadFromReplicaAndWriteToPrimary() {
+        //given
+        replicaHeartbeat(System.currentTimeMillis());
+        replicaLagMonitor.check();
+
+        //when
+        List<Employee> replicaEmployees = employeeService.getEmployeesByIds(List.of(9001L));
+        Employee savedEmployee = employeeService.saveEmployee(Employee.builder()
+                .firstName("Jesus").lastName("Tapia").email("primary@gmail.com").build());
+
+        //then
+        assertThat(replicaLagMonitor.isReplicaAvailable()).isTrue();
+        assertThat(replicaEmployees).extracting(Employee::getEmail).containsExactly("ramesh@replica.com");
+        assertThat(primary.queryForObject("select count(*) from employee where id = ?", Integer.class, savedEmployee.getId())).isEqualTo(1);
+        assertThat(replica.queryForObject("select count(*) from employee where email = 'primary@gmail.com'", Integer.class)).isZero();
+        assertThat(primary.queryForObject("select beat_at from replica_heartbeat where id = 1", Long.class)).isPositive();
+    }
+
+    @DisplayName("JUnit test for cached by-id reads served by the primary and replica reads kept out of the caches")
+    @Test
+    public void givenReplicaInSync_whenGetEmployeeById_thenReadFromPrimary() {
+        //given
+        replicaHeartbeat(System.currentTimeMillis());
+        replicaLagMonitor.check();
+        employeeService.getEmployeesByIds(List.of(9001L));
+
+        //when
+        Optional<Employee> employee = employeeService.getEmployeeById(9001L);
+
+        //then
+        assertThat(replicaLagMonitor.isReplicaAvailable()).isTrue();
+        assertThat(employee).isEmpty();
+        assertThat(entityManagerFactory.getCache().contains(Employee.class, 9001L)).isFalse();
+    }
+
+    @DisplayName("JUnit test for read-only calls falling back to the primary while the replica lags")
+    @Test
+    public void givenLaggingReplica_whenRead_thenReadFromPrimary() {
+        //given
+        replicaHeartbeat(System.currentTimeMillis() - 60_000);
+        replicaLagMonitor.check();
+
+        //when
+        List<Employee> employees = employeeService.getEmployeesByIds(List.of(9001L));
+
+        //then
+        assertThat(replicaLagMonitor.isReplicaAvailable()).isFalse();
+        assertThat(replicaLagMonitor.lagSeconds()).isGreaterThanOrEqualTo(60);
+        assertThat(employees).isEmpty();
+    }
+
+    @DisplayName("JUnit test for read-only calls falling back to the primary while the replica cannot be checked")
+    @Test
+    public void givenReplicaWithoutHeartbeat_whenRead_thenReadFromPrimary() {
+        //given
+        replica.update("delete from replica_heartbeat");
+        replicaLagMonitor.check();
+
+        //when
+        List<Employee> employees = employeeService.getEmployeesByIds(List.of(9001L));
+
+        //then
+        assertThat(replicaLagMonitor.isReplicaAvailable()).isFalse();
+        assertThat(employees).isEmpty();
+    }
+
+    private void replicaHeartbeat(long beatAt) {
+        replica.update("merge into replica_heartbeat (id, beat_at) key (id) values (1, ?)", beatAt);
+    }
+}
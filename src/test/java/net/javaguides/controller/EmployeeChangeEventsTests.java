@@ -0,0 +1,216 @@
+package net.javaguides.controller;
+
+import net.javaguides.event.EmployeeChangedEvent;
+import net.javaguides.model.Employee;
+import net.javaguides.service.EmployeeService;
+import net.javaguides.service.impl.EmployeeChangeBroadcaster;
+import net.javaguides.service.impl.EmployeeChangeFeed;
+import net.javaguides.service.impl.EmployeePageCache;
+import net.javaguides.service.impl.EmployeeWriteBehindQueue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.UnsupportedEncodingException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+//Live change events through the real broadcaster, a fresh one per test so sequence numbers start at 0
+@WebMvcTest(controllers = EmployeeControler.class, properties = {
+        "employee.events.buffer-size=4",
+        "employee.events.sender-threads=1",
+        "employee.events.send-timeout=200ms"})
+@Import(EmployeeChangeBroadcaster.class)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class EmployeeChangeEventsTests {
+
+    //an event id is the broadcaster's epoch and the sequence number
+    private static final Pattern EVENT_ID = Pattern.compile("id:([0-9a-z]+)-(\\d+)");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EmployeeChangeBroadcaster changeBroadcaster;
+
+    @MockBean
+    private EmployeeService employeeService;
+
+    @MockBean
+    private EmployeeWriteBehindQueue writeBehindQueue;
+
+    @MockBean
+    private EmployeeChangeFeed changeFeed;
+
+    @MockBean
+    private EmployeePageCache pageCache;
+
+    @DisplayName("JUnit test for a committed change pushed to every subscriber")
+    @Test
+    public void givenSubscribers_whenEmployeeChanged_thenPushEventToAll() throws Exception {
+        //given
+        MvcResult first = subscribe(null);
+        MvcResult second = subscribe(null);
+
+        //when
+        changeBroadcaster.onEmployeeChanged(EmployeeChangedEvent.created(employee(7L)));
+
+        //then
+        for (MvcResult subscriber : new MvcResult[]{first, second}) {
+            String events = awaitContent(subscriber, "event:created", "\"employeeId\":7", "\"email\":\"tapia0@hotmail.com\"");
+            assertThat(eventIds(events)).containsExactly(0L);
+        }
+    }
+
+    @DisplayName("JUnit test for a reconnect resuming after its Last-Event-ID")
+    @Test
+    public void givenBufferedEvents_whenReconnectWithLastEventId_thenResendMissedEvents() throws Exception {
+        //given
+        MvcResult observer = subscribe(null);
+        changeBroadcaster.onEmployeeChanged(EmployeeChangedEvent.created(employee(1L)));
+        changeBroadcaster.onEmployeeChanged(EmployeeChangedEvent.updated(1L, employee(1L)));
+        changeBroadcaster.onEmployeeChanged(EmployeeChangedEvent.deleted(1L));
+        String firstId = firstEventId(awaitContent(observer, "event:created"));
+
+        //when
+        MvcResult subscriber = subscribe(firstId);
+
+        //then
+        String events = awaitContent(subscriber, "event:updated", "event:deleted", "\"employeeId\":1,\"employee\":null");
+        assertThat(eventIds(events)).containsExactly(1L, 2L);
+    }
+
+    @DisplayName("JUnit test for a reconnect past the buffer told to resync")
+    @Test
+    public void givenLastEventIdNoLongerBuffered_whenReconnect_thenSendResync() throws Exception {
+        //given
+        MvcResult observer = subscribe(null);
+        changeBroadcaster.onEmployeeChanged(EmployeeChangedEvent.deleted(1L));
+        String firstId = firstEventId(awaitContent(observer, "event:deleted"));
+        for (long id = 2; id <= 6; id++) {
+            changeBroadcaster.onEmployeeChanged(EmployeeChangedEvent.deleted(id));
+        }
+
+        //when
+        MvcResult subscriber = subscribe(firstId);
+        changeBroadcaster.onEmployeeChanged(EmployeeChangedEvent.deleted(7L));
+
+        //then - only changes after the resync
+        String events = awaitContent(subscriber, "event:resync", "\"employeeId\":7,\"employee\":null");
+        assertThat(eventIds(events)).containsExactly(6L);
+    }
+
+    @DisplayName("JUnit test for a Last-Event-ID of another process told to resync")
+    @Test
+    public void givenLastEventIdOfAnotherEpoch_whenReconnect_thenSendResync() throws Exception {
+        //given
+        changeBroadcaster.onEmployeeChanged(EmployeeChangedEvent.deleted(1L));
+        changeBroadcaster.onEmployeeChanged(EmployeeChangedEvent.deleted(2L));
+
+        //when - the same sequence numbers, sent before a restart
+        MvcResult subscriber = subscribe("restarted-0");
+        changeBroadcaster.onEmployeeChanged(EmployeeChangedEvent.deleted(3L));
+
+        //then
+        String events = awaitContent(subscriber, "event:resync", "\"employeeId\":3,\"employee\":null");
+        assertThat(events).doesNotContain("\"employeeId\":2,\"employee\":null");
+        assertThat(eventIds(events)).containsExactly(2L);
+    }
+
+    @DisplayName("JUnit test for a subscriber stuck in a send dropped without holding up the others")
+    @Test
+    public void givenStalledSubscriber_whenEmployeeChanged_thenDropItAndPushToOthers() throws Exception {
+        //given
+        SseEmitter stalled = changeBroadcaster.subscribe(null).orElseThrow();
+        MvcResult subscriber = subscribe(null);
+
+        //when - sends take the emitter's lock, holding it blocks the only sender like a client that stopped reading
+        synchronized (stalled) {
+            changeBroadcaster.onEmployeeChanged(EmployeeChangedEvent.created(employee(7L)));
+
+            //then
+            awaitUntil(() -> changeBroadcaster.subscribers() == 1);
+            awaitContent(subscriber, "event:created", "\"employeeId\":7");
+        }
+        changeBroadcaster.onEmployeeChanged(EmployeeChangedEvent.deleted(7L));
+        awaitContent(subscriber, "event:deleted");
+    }
+
+    private MvcResult subscribe(String lastEventId) throws Exception {
+        return mockMvc.perform(lastEventId == null
+                        ? get("/api/employees/events").accept(MediaType.TEXT_EVENT_STREAM)
+                        : get("/api/employees/events").accept(MediaType.TEXT_EVENT_STREAM).header("Last-Event-ID", lastEventId))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+    }
+
+    //events are sent by the broadcaster's sender threads, an event in several writes
+    private static String awaitContent(MvcResult subscriber, String... expected) throws Exception {
+        awaitUntil(() -> containsAll(subscriber, expected));
+        return subscriber.getResponse().getContentAsString();
+    }
+
+    private static boolean containsAll(MvcResult subscriber, String... expected) {
+        try {
+            String content = subscriber.getResponse().getContentAsString();
+            return Arrays.stream(expected).allMatch(content::contains);
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+
+    private static String firstEventId(String events) {
+        Matcher matcher = EVENT_ID.matcher(events);
+        assertThat(matcher.find()).isTrue();
+        return matcher.group(1) + "-" + matcher.group(2);
+    }
+
+    //sequence numbers of the events, all of one epoch
+    private static List<Long> eventIds(String events) {
+        Matcher matcher = EVENT_ID.matcher(events);
+        Set<String> epochs = new HashSet<>();
+        List<Long> sequences = new ArrayList<>();
+        while (matcher.find()) {
+            epochs.add(matcher.group(1));
+            sequences.add(Long.parseLong(matcher.group(2)));
+        }
+        assertThat(epochs).hasSizeLessThanOrEqualTo(1);
+        return sequences;
+    }
+
+    private static Employee employee(Long id) {
+        return Employee.builder()
+                .id(id)
+                .firstName("Jesus")
+                .lastName("Tapia")
+                .email("tapia0@hotmail.com")
+                .build();
+    }
+}
@@ -1,41 +1,100 @@
 package net.javaguides.controller;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import net.javaguides.config.MessageConverterConfig;
+import net.javaguides.dto.EmployeePage;
+import net.javaguides.dto.EmployeeSummary;
+import net.javaguides.dto.WriteStatus;
+import net.javaguides.event.EmployeeChangedEvent;
 import net.javaguides.model.Employee;
+import net.javaguides.model.EmployeeChange;
 import net.javaguides.service.EmployeeService;
+import net.javaguides.service.impl.EmployeeChangeBroadcaster;
+import net.javaguides.service.impl.EmployeeChangeFeed;
+import net.javaguides.service.impl.EmployeePageCache;
+import net.javaguides.service.impl.EmployeeWriteBehindQueue;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.io.ByteArrayInputStream;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.CoreMatchers.is;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
-import static org.mockito.BDDMockito.willDoNothing;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
-@WebMvcTest
+@WebMvcTest(EmployeeControler.class)
+@Import({MessageConverterConfig.class, EmployeePageCache.class})
 public class EmployeeControllerTests {
 
+    private static final MediaType SMILE = MediaType.valueOf("application/x-jackson-smile");
+
     @Autowired
     private MockMvc mockMvc;
 
     @MockBean
     private EmployeeService employeeService;
 
+    @MockBean
+    private EmployeeWriteBehindQueue writeBehindQueue;
+
+    @MockBean
+    private EmployeeChangeFeed changeFeed;
+
+    @MockBean
+    private EmployeeChangeBroadcaster changeBroadcaster;
+
+    @MockBean
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EmployeePageCache pageCache;
+
     @Autowired
     private ObjectMapper objectMapper;
 
+    @BeforeEach
+    public void setup() {
+        //pages cached by earlier tests came from other stubs
+        pageCache.onEmployeeChanged(EmployeeChangedEvent.deleted(0L));
+    }
+
     @Test
     public void givenEmployeeObject_whenCreateEmployee_thenReturnSavedEmployee() throws Exception {
         //given
@@ -60,6 +119,104 @@ public class EmployeeControllerTests {
                 .andExpect(jsonPath("$.email", is(employee.getEmail())));
     }
 
+    @Test
+    public void givenWriteBehindEnabled_whenCreateEmployee_thenReturnAcceptedWithStatusLocation() throws Exception {
+        //given
+        Employee employee = Employee.builder()
+                .firstName("Jesus")
+                .lastName("Tapia")
+                .email("chucholuco@gmail.com")
+                .build();
+
+        given(writeBehindQueue.isEnabled()).willReturn(true);
+        given(writeBehindQueue.submitCreate(any(Employee.class))).willReturn(Optional.of(WriteStatus.pending("t1")));
+
+        //when
+        ResultActions response = mockMvc.perform(post("/api/employees")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(employee)));
+
+        //then
+        response.andDo(print())
+                .andExpect(status().isAccepted())
+                .andExpect(header().string(HttpHeaders.LOCATION, "/api/employees/writes/t1"))
+                .andExpect(jsonPath("$.ticket", is("t1")))
+                .andExpect(jsonPath("$.state", is("PENDING")));
+        verify(employeeService, never()).saveEmployee(any(Employee.class));
+    }
+
+    @Test
+    public void givenWriteBehindQueueFull_whenCreateEmployee_thenReturn503() throws Exception {
+        //given
+        Employee employee = Employee.builder()
+                .firstName("Jesus")
+                .lastName("Tapia")
+                .email("chucholuco@gmail.com")
+                .build();
+
+        given(writeBehindQueue.isEnabled()).willReturn(true);
+        given(writeBehindQueue.submitCreate(any(Employee.class))).willReturn(Optional.empty());
+
+        //when
+        ResultActions response = mockMvc.perform(post("/api/employees")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(employee)));
+
+        //then
+        response.andDo(print())
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+    }
+
+    @Test
+    public void givenCommittedWrite_whenGetWriteStatus_thenReturnEmployeeId() throws Exception {
+        //given
+        given(writeBehindQueue.getStatus("t1")).willReturn(Optional.of(WriteStatus.committed("t1", 7L)));
+
+        //when
+        ResultActions response = mockMvc.perform(get("/api/employees/writes/{ticket}", "t1"));
+
+        //then
+        response.andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.state", is("COMMITTED")))
+                .andExpect(jsonPath("$.employeeId", is(7)));
+    }
+
+    @Test
+    public void givenUnknownTicket_whenGetWriteStatus_thenReturn404() throws Exception {
+        //given
+        given(writeBehindQueue.getStatus("t1")).willReturn(Optional.empty());
+
+        //when
+        ResultActions response = mockMvc.perform(get("/api/employees/writes/{ticket}", "t1"));
+
+        //then
+        response.andDo(print())
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void givenListOfEmployees_whenCreateEmployees_thenReturnSavedEmployees() throws Exception {
+        //given
+        List<Employee> listOfEmployees = new ArrayList<>();
+        listOfEmployees.add(Employee.builder().firstName("Jesus").lastName("Tapia").email("tapia0@hotmail.com").build());
+        listOfEmployees.add(Employee.builder().firstName("Azalia").lastName("Santiago").email("ledtere@hotmail.com").build());
+
+        given(employeeService.saveEmployees(any())).willAnswer((invocation) -> invocation.getArgument(0));
+
+        //when
+        ResultActions response = mockMvc.perform(post("/api/employees/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(listOfEmployees)));
+
+        //then
+        response.andDo(print())
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.size()", is(listOfEmployees.size())))
+                .andExpect(jsonPath("$[1].email", is("ledtere@hotmail.com")));
+    }
+
     @Test
     public void givenListOfEmployees_whenGetAllEmployees_thenReturnEmployeesList() throws Exception {
         //given
@@ -67,7 +224,7 @@ public class EmployeeControllerTests {
         listOfEmployees.add(Employee.builder().firstName("Jesus").lastName("Tapia").email("tapia0@hotmail.com").build());
         listOfEmployees.add(Employee.builder().firstName("Azalia").lastName("Santiago").email("ledtere@hotmail.com").build());
 
-        given(employeeService.getAllEmployees()).willReturn(listOfEmployees);
+        given(employeeService.getEmployeesPage(null, 100)).willReturn(new EmployeePage(listOfEmployees, null));
 
         //when
         ResultActions response = mockMvc.perform(get("/api/employees"));
@@ -75,9 +232,302 @@ public class EmployeeControllerTests {
         //then
         response.andExpect(status().isOk())
                 .andDo(print())
+                .andExpect(header().doesNotExist("X-Next-Cursor"))
                 .andExpect(jsonPath("$.size()", is(listOfEmployees.size())));
     }
 
+    @Test
+    public void givenUnchangedPage_whenGetAllEmployeesWithETag_thenReturnNotModifiedWithoutQuery() throws Exception {
+        //given
+        List<Employee> listOfEmployees = new ArrayList<>();
+        listOfEmployees.add(Employee.builder().id(1L).firstName("Jesus").lastName("Tapia").email("tapia0@hotmail.com").build());
+        given(employeeService.getEmployeesPage(null, 100)).willReturn(new EmployeePage(listOfEmployees, null));
+        String eTag = mockMvc.perform(get("/api/employees"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        //when
+        ResultActions response = mockMvc.perform(get("/api/employees").header(HttpHeaders.IF_NONE_MATCH, eTag));
+
+        //then
+        response.andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(content().string(""));
+        verify(employeeService, times(1)).getEmployeesPage(null, 100);
+    }
+
+    @Test
+    public void givenChangedEmployee_whenGetAllEmployeesWithOldETag_thenReturnNewPage() throws Exception {
+        //given
+        Employee employee = Employee.builder().id(1L).firstName("Jesus").lastName("Tapia").email("tapia0@hotmail.com").build();
+        Employee changedEmployee = Employee.builder().id(1L).firstName("Jesus").lastName("Tapia").email("jesus@hotmail.com").build();
+        given(employeeService.getEmployeesPage(null, 100))
+                .willReturn(new EmployeePage(List.of(employee), null), new EmployeePage(List.of(changedEmployee), null));
+        String eTag = mockMvc.perform(get("/api/employees")).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        pageCache.onEmployeeChanged(EmployeeChangedEvent.updated(1L, changedEmployee));
+
+        //when
+        ResultActions response = mockMvc.perform(get("/api/employees").header(HttpHeaders.IF_NONE_MATCH, eTag));
+
+        //then
+        response.andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].email", is("jesus@hotmail.com")));
+        assertThat(response.andReturn().getResponse().getHeader(HttpHeaders.ETAG)).isNotEqualTo(eTag);
+    }
+
+    @Test
+    public void givenLargePage_whenGetAllEmployeesAcceptingGzip_thenReturnGzippedJson() throws Exception {
+        //given
+        List<Employee> listOfEmployees = new ArrayList<>();
+        for (long id = 1; id <= 100; id++) {
+            listOfEmployees.add(Employee.builder().id(id).firstName("Jesus").lastName("Tapia").email("tapia" + id + "@hotmail.com").build());
+        }
+        given(employeeService.getEmployeesPage(null, 100)).willReturn(new EmployeePage(listOfEmployees, 100L));
+
+        //when
+        MvcResult result = mockMvc.perform(get("/api/employees").header(HttpHeaders.ACCEPT_ENCODING, "br;q=1.0, gzip;q=0.8"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(header().string("X-Next-Cursor", "100"))
+                .andReturn();
+
+        //then
+        try (GZIPInputStream json = new GZIPInputStream(new ByteArrayInputStream(result.getResponse().getContentAsByteArray()))) {
+            List<Employee> employees = objectMapper.readValue(json, new TypeReference<List<Employee>>() {
+            });
+            assertThat(employees).hasSize(100);
+        }
+        assertThat(result.getResponse().getHeader(HttpHeaders.ETAG)).endsWith("-gzip\"");
+    }
+
+    @Test
+    public void givenSmileAccepted_whenGetAllEmployees_thenReturnSmileEmployeesList() throws Exception {
+        //given
+        List<Employee> listOfEmployees = new ArrayList<>();
+        listOfEmployees.add(Employee.builder().id(1L).firstName("Jesus").lastName("Tapia").email("tapia0@hotmail.com").build());
+        listOfEmployees.add(Employee.builder().id(2L).firstName("Azalia").lastName("Santiago").email("ledtere@hotmail.com").build());
+
+        given(employeeService.getEmployeesPage(null, 100)).willReturn(new EmployeePage(listOfEmployees, null));
+
+        //when
+        MvcResult result = mockMvc.perform(get("/api/employees").accept(SMILE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(SMILE))
+                .andReturn();
+
+        //then
+        List<Employee> employees = Jackson2ObjectMapperBuilder.smile().build()
+                .readValue(result.getResponse().getContentAsByteArray(), new TypeReference<List<Employee>>() {
+                });
+        assertThat(employees).extracting(Employee::getEmail).containsExactly("tapia0@hotmail.com", "ledtere@hotmail.com");
+    }
+
+    @Test
+    public void givenCborEmployee_whenCreateEmployee_thenReturnCborSavedEmployee() throws Exception {
+        //given
+        Employee employee = Employee.builder().firstName("Jesus").lastName("Tapia").email("chucholuco@gmail.com").build();
+        ObjectMapper cborMapper = Jackson2ObjectMapperBuilder.cbor().build();
+        given(employeeService.saveEmployee(any(Employee.class))).willAnswer((invocation) -> invocation.getArgument(0));
+
+        //when
+        MvcResult result = mockMvc.perform(post("/api/employees")
+                        .contentType(MediaType.APPLICATION_CBOR)
+                        .accept(MediaType.APPLICATION_CBOR)
+                        .content(cborMapper.writeValueAsBytes(employee)))
+                .andExpect(status().isCreated())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn();
+
+        //then
+        Employee savedEmployee = cborMapper.readValue(result.getResponse().getContentAsByteArray(), Employee.class);
+        assertThat(savedEmployee.getEmail()).isEqualTo(employee.getEmail());
+    }
+
+    @Test
+    public void givenMoreEmployeesThanLimit_whenGetAllEmployees_thenReturnNextCursor() throws Exception {
+        //given
+        List<Employee> listOfEmployees = new ArrayList<>();
+        listOfEmployees.add(Employee.builder().id(11L).firstName("Jesus").lastName("Tapia").email("tapia0@hotmail.com").build());
+        listOfEmployees.add(Employee.builder().id(12L).firstName("Azalia").lastName("Santiago").email("ledtere@hotmail.com").build());
+
+        given(employeeService.getEmployeesPage(10L, 2)).willReturn(new EmployeePage(listOfEmployees, 12L));
+
+        //when
+        ResultActions response = mockMvc.perform(get("/api/employees")
+                .param("afterId", "10")
+                .param("limit", "2"));
+
+        //then
+        response.andExpect(status().isOk())
+                .andDo(print())
+                .andExpect(header().string("X-Next-Cursor", "12"))
+                .andExpect(jsonPath("$.size()", is(2)));
+    }
+
+    @Test
+    public void givenMatchingEmployees_whenSearchEmployeesByName_thenReturnSummariesAndHasNext() throws Exception {
+        //given
+        Employee employee = Employee.builder().id(1L).firstName("Jesus").lastName("Tapia").email("tapia0@hotmail.com").build();
+        EmployeeSummary summary = new SpelAwareProxyProjectionFactory().createProjection(EmployeeSummary.class, employee);
+
+        given(employeeService.searchEmployeesByName("Jes", null, true, 0, 1))
+                .willReturn(new SliceImpl<>(List.of(summary), PageRequest.of(0, 1), true));
+
+        //when
+        ResultActions response = mockMvc.perform(get("/api/employees/by-name")
+                .param("firstName", "Jes")
+                .param("prefix", "true")
+                .param("size", "1"));
+
+        //then
+        response.andExpect(status().isOk())
+                .andDo(print())
+                .andExpect(header().string("X-Has-Next", "true"))
+                .andExpect(jsonPath("$.size()", is(1)))
+                .andExpect(jsonPath("$[0].firstName", is("Jesus")))
+                .andExpect(jsonPath("$[0].email", is("tapia0@hotmail.com")));
+    }
+
+    @Test
+    public void givenQuery_whenSearchEmployees_thenReturnRankedSummaries() throws Exception {
+        //given
+        Employee employee1 = Employee.builder().id(1L).firstName("Jesus").lastName("Tapia").email("tapia0@hotmail.com").build();
+        Employee employee2 = Employee.builder().id(2L).firstName("Jessica").lastName("Tapia").email("jessica@hotmail.com").build();
+        SpelAwareProxyProjectionFactory projectionFactory = new SpelAwareProxyProjectionFactory();
+
+        given(employeeService.searchEmployees("jesus", 20)).willReturn(List.of(
+                projectionFactory.createProjection(EmployeeSummary.class, employee1),
+                projectionFactory.createProjection(EmployeeSummary.class, employee2)));
+
+        //when
+        ResultActions response = mockMvc.perform(get("/api/employees/search").param("q", "jesus"));
+
+        //then
+        response.andExpect(status().isOk())
+                .andDo(print())
+                .andExpect(jsonPath("$.size()", is(2)))
+                .andExpect(jsonPath("$[0].id", is(1)))
+                .andExpect(jsonPath("$[1].firstName", is("Jessica")));
+    }
+
+    @Test
+    public void givenEmployeeIds_whenGetEmployeesByIds_thenReturnEmployeesInRequestOrder() throws Exception {
+        //given
+        Employee employee1 = Employee.builder().id(2L).firstName("Azalia").lastName("Santiago").email("ledtere@gmail.com").build();
+        Employee employee2 = Employee.builder().id(1L).firstName("Jesus").lastName("Tapia").email("tapia0@hotmail.com").build();
+        given(employeeService.getEmployeesByIds(List.of(2L, 3L, 1L))).willReturn(List.of(employee1, employee2));
+
+        //when
+        ResultActions response = mockMvc.perform(get("/api/employees").param("ids", "2,3,1"));
+
+        //then
+        response.andExpect(status().isOk())
+                .andDo(print())
+                .andExpect(jsonPath("$.size()", is(2)))
+                .andExpect(jsonPath("$[0].id", is(2)))
+                .andExpect(jsonPath("$[1].id", is(1)));
+        verify(employeeService, never()).getEmployeesPage(any(), any(Integer.class));
+    }
+
+    @Test
+    public void givenEmployeeIds_whenLookupEmployees_thenReturnEmployeesInRequestOrder() throws Exception {
+        //given
+        Employee employee1 = Employee.builder().id(2L).firstName("Azalia").lastName("Santiago").email("ledtere@gmail.com").build();
+        given(employeeService.getEmployeesByIds(List.of(2L, 3L))).willReturn(List.of(employee1));
+
+        //when
+        ResultActions response = mockMvc.perform(post("/api/employees/lookup")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(List.of(2L, 3L))));
+
+        //then
+        response.andExpect(status().isOk())
+                .andDo(print())
+                .andExpect(jsonPath("$.size()", is(1)))
+                .andExpect(jsonPath("$[0].email", is(employee1.getEmail())));
+    }
+
+    @Test
+    public void givenListOfEmployees_whenExportEmployees_thenStreamNdjson() throws Exception {
+        //given
+        Employee employee1 = Employee.builder().id(1L).firstName("Jesus").lastName("Tapia").email("tapia0@hotmail.com").build();
+        Employee employee2 = Employee.builder().id(2L).firstName("Azalia").lastName("Santiago").email("ledtere@hotmail.com").build();
+
+        willAnswer(invocation -> {
+            Consumer<Employee> consumer = invocation.getArgument(0);
+            consumer.accept(employee1);
+            consumer.accept(employee2);
+            return null;
+        }).given(employeeService).exportEmployees(any());
+
+        //when
+        MvcResult result = mockMvc.perform(get("/api/employees/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        //then
+        assertThat(result.getRequest().getAsyncContext().getTimeout()).isEqualTo(Duration.ofHours(1).toMillis());
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(objectMapper.writeValueAsString(employee1) + "\n"
+                        + objectMapper.writeValueAsString(employee2) + "\n"));
+    }
+
+    @Test
+    public void givenChangesSinceCursor_whenGetChanges_thenReturnChangesAndNextCursor() throws Exception {
+        //given
+        List<EmployeeChange> changes = List.of(
+                EmployeeChange.builder().id(6L).type(EmployeeChangedEvent.Type.UPDATED).employeeId(1L).email("tapia0@hotmail.com").build(),
+                EmployeeChange.builder().id(9L).type(EmployeeChangedEvent.Type.DELETED).employeeId(2L).build());
+        given(changeFeed.awaitChangesSince(5L, 100, Duration.ofSeconds(30))).willReturn(CompletableFuture.completedFuture(changes));
+
+        //when
+        MvcResult result = mockMvc.perform(get("/api/employees/changes").param("since", "5").param("wait", "30"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        //then
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "9"))
+                .andExpect(jsonPath("$.size()", is(2)))
+                .andExpect(jsonPath("$[0].type", is("UPDATED")))
+                .andExpect(jsonPath("$[1].employeeId", is(2)));
+    }
+
+    @Test
+    public void givenNoChanges_whenGetChanges_thenKeepCursor() throws Exception {
+        //given
+        given(changeFeed.awaitChangesSince(5L, 100, Duration.ZERO)).willReturn(CompletableFuture.completedFuture(List.of()));
+
+        //when
+        MvcResult result = mockMvc.perform(get("/api/employees/changes").param("since", "5"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        //then
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "5"))
+                .andExpect(jsonPath("$.size()", is(0)));
+    }
+
+    @Test
+    public void givenSubscriberLimitReached_whenStreamChanges_thenReturn503() throws Exception {
+        //given
+        given(changeBroadcaster.subscribe(null)).willReturn(Optional.empty());
+
+        //when
+        ResultActions response = mockMvc.perform(get("/api/employees/events").accept(MediaType.TEXT_EVENT_STREAM));
+
+        //then
+        response.andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+    }
+
     @Test
     public void givenEmployeeId_whenGetEmployeeById_thenReturnEmployeesObject() throws Exception {
         //given
@@ -101,6 +551,31 @@ public class EmployeeControllerTests {
                 .andExpect(jsonPath("$.email", is(employee.getEmail())));
     }
 
+    @Test
+    public void givenMatchingETag_whenGetEmployeeById_thenReturn304() throws Exception {
+        //given
+        long employeeId = 1L;
+        Employee employee = Employee.builder()
+                .id(employeeId)
+                .firstName("Jesus")
+                .lastName("Tapia")
+                .email("chucholuco@gmail.com")
+                .version(3L)
+                .build();
+
+        given(employeeService.getEmployeeById(employeeId)).willReturn(Optional.of(employee));
+
+        //when
+        ResultActions response = mockMvc.perform(get("/api/employees/{id}", employeeId)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"3\""));
+
+        //then
+        response.andExpect(status().isNotModified())
+                .andDo(print())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                .andExpect(content().string(""));
+    }
+
     @Test
     public void givenInvalidEmployeeId_whenGetEmployeeById_thenReturnEmpty() throws Exception {
         //given
@@ -153,6 +628,140 @@ public class EmployeeControllerTests {
                 .andExpect(jsonPath("$.email", is(updatedEmployee.getEmail())));
     }
 
+    @Test
+    public void givenWriteBehindEnabled_whenUpdateEmployee_thenReturnAccepted() throws Exception {
+        //given
+        long employeeId = 1L;
+        Employee savedEmployee = Employee.builder()
+                .id(employeeId)
+                .firstName("Jesus")
+                .lastName("Tapia")
+                .email("chucholuco@gmail.com")
+                .version(3L)
+                .build();
+        Employee updatedEmployee = Employee.builder()
+                .firstName("Azalia")
+                .lastName("Santiago")
+                .email("ledtere@gmail.com")
+                .build();
+
+        given(employeeService.getEmployeeById(employeeId)).willReturn(Optional.of(savedEmployee));
+        given(writeBehindQueue.isEnabled()).willReturn(true);
+        given(writeBehindQueue.submitUpdate(eq(employeeId), any(Employee.class), eq(3L))).willReturn(Optional.of(WriteStatus.pending("t1")));
+
+        //when
+        ResultActions response = mockMvc.perform(put("/api/employees/{id}", employeeId)
+                .header(HttpHeaders.IF_MATCH, "\"3\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(updatedEmployee)));
+
+        //then
+        response.andExpect(status().isAccepted())
+                .andDo(print())
+                .andExpect(header().string(HttpHeaders.LOCATION, "/api/employees/writes/t1"));
+        verify(employeeService, never()).updateEmployee(any(Employee.class));
+    }
+
+    @Test
+    public void givenStaleETag_whenUpdatedEmployee_thenReturn412() throws Exception {
+        //given
+        long employeeId = 1L;
+        Employee savedEmployee = Employee.builder()
+                .id(employeeId)
+                .firstName("Jesus")
+                .lastName("Tapia")
+                .email("chucholuco@gmail.com")
+                .version(4L)
+                .build();
+        Employee updatedEmployee = Employee.builder()
+                .firstName("Azalia")
+                .lastName("Santiago")
+                .email("ledtere@gmail.com")
+                .build();
+
+        given(employeeService.getEmployeeById(employeeId)).willReturn(Optional.of(savedEmployee));
+
+        //when
+        ResultActions response = mockMvc.perform(put("/api/employees/{id}", employeeId)
+                .header(HttpHeaders.IF_MATCH, "\"3\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(updatedEmployee)));
+
+        //then
+        response.andExpect(status().isPreconditionFailed())
+                .andDo(print());
+        verify(employeeService, never()).updateEmployee(any(Employee.class));
+    }
+
+    @Test
+    public void givenETagList_whenUpdatedEmployee_thenUpdateIfAnyTagMatches() throws Exception {
+        //given
+        long employeeId = 1L;
+        Employee savedEmployee = Employee.builder()
+                .id(employeeId)
+                .firstName("Jesus")
+                .lastName("Tapia")
+                .email("chucholuco@gmail.com")
+                .version(4L)
+                .build();
+        Employee updatedEmployee = Employee.builder()
+                .firstName("Azalia")
+                .lastName("Santiago")
+                .email("ledtere@gmail.com")
+                .build();
+
+        given(employeeService.getEmployeeById(employeeId)).willReturn(Optional.of(savedEmployee));
+        given(employeeService.updateEmployee(any(Employee.class))).willAnswer(invocation -> {
+            Employee employee = invocation.getArgument(0);
+            employee.setVersion(employee.getVersion() + 1);
+            return employee;
+        });
+
+        //when
+        ResultActions response = mockMvc.perform(put("/api/employees/{id}", employeeId)
+                .header(HttpHeaders.IF_MATCH, "\"3\", W/\"5\", \"4\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(updatedEmployee)));
+
+        //then
+        response.andExpect(status().isOk())
+                .andDo(print())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"5\""))
+                .andExpect(jsonPath("$.firstName", is(updatedEmployee.getFirstName())));
+    }
+
+    @Test
+    public void givenConcurrentUpdate_whenUpdatedEmployee_thenReturn412() throws Exception {
+        //given
+        long employeeId = 1L;
+        Employee savedEmployee = Employee.builder()
+                .id(employeeId)
+                .firstName("Jesus")
+                .lastName("Tapia")
+                .email("chucholuco@gmail.com")
+                .version(3L)
+                .build();
+        Employee updatedEmployee = Employee.builder()
+                .firstName("Azalia")
+                .lastName("Santiago")
+                .email("ledtere@gmail.com")
+                .build();
+
+        given(employeeService.getEmployeeById(employeeId)).willReturn(Optional.of(savedEmployee));
+        given(employeeService.updateEmployee(any(Employee.class)))
+                .willThrow(new ObjectOptimisticLockingFailureException(Employee.class, employeeId));
+
+        //when
+        ResultActions response = mockMvc.perform(put("/api/employees/{id}", employeeId)
+                .header(HttpHeaders.IF_MATCH, "\"3\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(updatedEmployee)));
+
+        //then
+        response.andExpect(status().isPreconditionFailed())
+                .andDo(print());
+    }
+
     @Test
     public void givenUpdatedEmployee_whenUpdatedEmployee_thenReturn404() throws Exception {
         //given
@@ -182,11 +791,51 @@ public class EmployeeControllerTests {
 
     }
 
+    @Test
+    public void givenEmployeePatch_whenPatchEmployee_thenReturn204() throws Exception {
+        //given
+        long employeeId = 1L;
+        Employee patch = Employee.builder()
+                .email("ledtere@gmail.com")
+                .build();
+
+        given(employeeService.patchEmployee(eq(employeeId), any(Employee.class))).willReturn(true);
+
+        //when
+        ResultActions response = mockMvc.perform(patch("/api/employees/{id}", employeeId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(patch)));
+
+        //then
+        response.andExpect(status().isNoContent())
+                .andDo(print());
+    }
+
+    @Test
+    public void givenEmployeePatch_whenPatchEmployee_thenReturn404() throws Exception {
+        //given
+        long employeeId = 1L;
+        Employee patch = Employee.builder()
+                .email("ledtere@gmail.com")
+                .build();
+
+        given(employeeService.patchEmployee(eq(employeeId), any(Employee.class))).willReturn(false);
+
+        //when
+        ResultActions response = mockMvc.perform(patch("/api/employees/{id}", employeeId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(patch)));
+
+        //then
+        response.andExpect(status().isNotFound())
+                .andDo(print());
+    }
+
     @Test
     public void givenEmployeeId_whenDeleteEmployee_thenReturn200() throws Exception {
         //given
         long employeeId = 1L;
-        willDoNothing().given(employeeService).deleteEmployee(employeeId);
+        given(employeeService.deleteEmployee(employeeId)).willReturn(true);
 
         //when
         ResultActions response = mockMvc.perform(delete("/api/employees/{id}", employeeId));
@@ -194,4 +843,104 @@ public class EmployeeControllerTests {
         //then
         response.andExpect(status().isOk()).andDo(print());
     }
+
+    @Test
+    public void givenInvalidEmployeeId_whenDeleteEmployee_thenReturn404() throws Exception {
+        //given
+        long employeeId = 1L;
+        given(employeeService.deleteEmployee(employeeId)).willReturn(false);
+
+        //when
+        ResultActions response = mockMvc.perform(delete("/api/employees/{id}", employeeId));
+
+        //then
+        response.andExpect(status().isNotFound()).andDo(print());
+    }
+
+    @Test
+    public void givenEmployeeIds_whenDeleteEmployees_thenReturn200() throws Exception {
+        //given
+        given(employeeService.deleteEmployees(List.of(1L, 2L, 3L))).willReturn(3);
+
+        //when
+        ResultActions response = mockMvc.perform(delete("/api/employees").param("ids", "1,2,3"));
+
+        //then
+        response.andExpect(status().isOk())
+                .andDo(print())
+                .andExpect(content().string("3 employees deleted successfully"));
+    }
+
+    @Test
+    public void givenStaleETag_whenDeleteEmployee_thenReturn412() throws Exception {
+        //given
+        long employeeId = 1L;
+        Employee savedEmployee = Employee.builder()
+                .id(employeeId)
+                .firstName("Jesus")
+                .lastName("Tapia")
+                .email("chucholuco@gmail.com")
+                .version(4L)
+                .build();
+
+        given(employeeService.deleteEmployee(employeeId, 3L)).willReturn(false);
+        given(employeeService.getEmployeeById(employeeId)).willReturn(Optional.of(savedEmployee));
+
+        //when
+        ResultActions response = mockMvc.perform(delete("/api/employees/{id}", employeeId)
+                .header(HttpHeaders.IF_MATCH, "\"3\""));
+
+        //then
+        response.andExpect(status().isPreconditionFailed()).andDo(print());
+    }
+
+    @Test
+    public void givenETagList_whenDeleteEmployee_thenDeleteAtCurrentVersion() throws Exception {
+        //given
+        long employeeId = 1L;
+        Employee savedEmployee = Employee.builder()
+                .id(employeeId)
+                .firstName("Jesus")
+                .lastName("Tapia")
+                .email("chucholuco@gmail.com")
+                .version(4L)
+                .build();
+
+        given(employeeService.getEmployeeById(employeeId)).willReturn(Optional.of(savedEmployee));
+        given(employeeService.deleteEmployee(employeeId, 4L)).willReturn(true);
+
+        //when
+        ResultActions response = mockMvc.perform(delete("/api/employees/{id}", employeeId)
+                .header(HttpHeaders.IF_MATCH, "\"3\", \"4\""));
+
+        //then
+        response.andExpect(status().isOk()).andDo(print());
+        verify(employeeService).deleteEmployee(employeeId, 4L);
+    }
+
+    @Test
+    public void givenETagListWithoutCurrentVersion_whenPatchEmployee_thenReturn412() throws Exception {
+        //given
+        long employeeId = 1L;
+        Employee savedEmployee = Employee.builder()
+                .id(employeeId)
+                .firstName("Jesus")
+                .lastName("Tapia")
+                .email("chucholuco@gmail.com")
+                .version(4L)
+                .build();
+
+        given(employeeService.getEmployeeById(employeeId)).willReturn(Optional.of(savedEmployee));
+        given(employeeService.patchEmployee(eq(employeeId), any(Employee.class))).willReturn(false);
+
+        //when
+        ResultActions response = mockMvc.perform(patch("/api/employees/{id}", employeeId)
+                .header(HttpHeaders.IF_MATCH, "\"2\", \"3\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"firstName\":\"Azalia\"}"));
+
+        //then
+        response.andExpect(status().isPreconditionFailed()).andDo(print());
+        verify(employeeService).patchEmployee(eq(employeeId), argThat(employee -> employee.getVersion() == -1L));
+    }
 }
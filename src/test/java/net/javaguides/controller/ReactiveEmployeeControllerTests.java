@@ -0,0 +1,122 @@
+package net.javaguides.controller;
+
+import net.javaguides.dto.EmployeePage;
+import net.javaguides.model.Employee;
+import net.javaguides.service.ReactiveEmployeeService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.mockito.BDDMockito.given;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(ReactiveEmployeeController.class)
+public class ReactiveEmployeeControllerTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ReactiveEmployeeService employeeService;
+
+    @Test
+    public void givenEmployeeId_whenGetEmployeeById_thenReturnEmployeeObject() throws Exception {
+        //given
+        Employee employee = Employee.builder().id(1L).firstName("Jesus").lastName("Tapia").email("tapia0@hotmail.com").version(2L).build();
+        given(employeeService.getEmployeeById(1L)).willReturn(Mono.just(employee));
+
+        //when
+        MvcResult result = mockMvc.perform(get("/api/reactive/employees/{id}", 1L))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        //then
+        mockMvc.perform(asyncDispatch(result))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"2\""))
+                .andExpect(jsonPath("$.email", is(employee.getEmail())));
+    }
+
+    @Test
+    public void givenInvalidEmployeeId_whenGetEmployeeById_thenReturn404() throws Exception {
+        //given
+        given(employeeService.getEmployeeById(1L)).willReturn(Mono.empty());
+
+        //when
+        MvcResult result = mockMvc.perform(get("/api/reactive/employees/{id}", 1L)).andReturn();
+
+        //then
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void givenMoreEmployeesThanLimit_whenGetAllEmployees_thenReturnNextCursor() throws Exception {
+        //given
+        Employee employee = Employee.builder().id(11L).firstName("Jesus").lastName("Tapia").email("tapia0@hotmail.com").build();
+        given(employeeService.getEmployeesPage(10L, 1)).willReturn(Mono.just(new EmployeePage(List.of(employee), 11L)));
+
+        //when
+        MvcResult result = mockMvc.perform(get("/api/reactive/employees")
+                        .param("afterId", "10")
+                        .param("limit", "1"))
+                .andReturn();
+
+        //then
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "11"))
+                .andExpect(jsonPath("$.size()", is(1)));
+    }
+
+    @Test
+    public void givenListOfEmployees_whenExportEmployees_thenStreamNdjson() throws Exception {
+        //given
+        Employee employee1 = Employee.builder().id(1L).firstName("Jesus").lastName("Tapia").email("tapia0@hotmail.com").build();
+        Employee employee2 = Employee.builder().id(2L).firstName("Azalia").lastName("Santiago").email("ledtere@hotmail.com").build();
+        given(employeeService.getAllEmployees()).willReturn(Flux.just(employee1, employee2));
+
+        //when
+        MvcResult result = mockMvc.perform(get("/api/reactive/employees/export").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        //then
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(containsString("\"email\":\"ledtere@hotmail.com\",\"version\":null}\n")));
+    }
+
+    @Test
+    public void givenInvalidEmployeeId_whenDeleteEmployee_thenReturn404() throws Exception {
+        //given
+        given(employeeService.deleteEmployee(1L)).willReturn(Mono.just(false));
+
+        //when
+        MvcResult result = mockMvc.perform(delete("/api/reactive/employees/{id}", 1L)).andReturn();
+
+        //then
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isNotFound());
+    }
+}
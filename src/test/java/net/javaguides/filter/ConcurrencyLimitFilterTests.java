@@ -0,0 +1,116 @@
+package net.javaguides.filter;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ConcurrencyLimitFilterTests {
+
+    private static final List<String> UNLIMITED_PATHS = List.of("/api/employees/events");
+
+    @DisplayName("JUnit test for a request within the concurrency limit")
+    @Test
+    public void givenFreePermit_whenDoFilter_thenPassRequestAndReleasePermit() throws Exception {
+        //given
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(1, Duration.ofMillis(10), UNLIMITED_PATHS);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        //when
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/employees/1"), response, chain);
+
+        //then
+        assertThat(chain.getRequest()).isNotNull();
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(filter.availablePermits()).isEqualTo(1);
+    }
+
+    @DisplayName("JUnit test for a request over the concurrency limit")
+    @Test
+    public void givenNoFreePermit_whenDoFilter_thenReturn503() throws Exception {
+        //given
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(1, Duration.ofMillis(10), UNLIMITED_PATHS);
+        AtomicReference<MockHttpServletResponse> rejected = new AtomicReference<>();
+
+        //when - a second request arrives while the first one holds the only permit
+        MockFilterChain chain = new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+                MockHttpServletResponse response = new MockHttpServletResponse();
+                filter.doFilter(new MockHttpServletRequest("GET", "/api/employees/2"), response, new MockFilterChain());
+                rejected.set(response);
+            }
+        });
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/employees/1"), new MockHttpServletResponse(), chain);
+
+        //then
+        assertThat(rejected.get().getStatus()).isEqualTo(503);
+        assertThat(rejected.get().getHeader("Retry-After")).isEqualTo("1");
+        assertThat(filter.availablePermits()).isEqualTo(1);
+    }
+
+    @DisplayName("JUnit test for an async request holding its permit until it completes")
+    @Test
+    public void givenAsyncRequest_whenDoFilter_thenReleasePermitOnComplete() throws Exception {
+        //given
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(1, Duration.ofMillis(10), UNLIMITED_PATHS);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/employees/export");
+        request.setAsyncSupported(true);
+        MockFilterChain chain = new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp) {
+                req.startAsync();
+            }
+        });
+
+        //when
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+        int permitsWhileAsync = filter.availablePermits();
+        ((MockAsyncContext) request.getAsyncContext()).complete();
+
+        //then
+        assertThat(permitsWhileAsync).isZero();
+        assertThat(filter.availablePermits()).isEqualTo(1);
+    }
+
+    @DisplayName("JUnit test for open event streams not taking the permits of other requests")
+    @Test
+    public void givenMoreEventStreamsThanPermits_whenDoFilter_thenPassOtherRequest() throws Exception {
+        //given - event streams stay async until the client goes away
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(1, Duration.ofMillis(10), UNLIMITED_PATHS);
+        for (int i = 0; i < 3; i++) {
+            MockHttpServletRequest events = new MockHttpServletRequest("GET", "/api/employees/events");
+            events.setAsyncSupported(true);
+            filter.doFilter(events, new MockHttpServletResponse(), new MockFilterChain(new HttpServlet() {
+                @Override
+                protected void service(HttpServletRequest req, HttpServletResponse resp) {
+                    req.startAsync();
+                }
+            }));
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        //when
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/employees/1"), response, chain);
+
+        //then
+        assertThat(chain.getRequest()).isNotNull();
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(filter.availablePermits()).isEqualTo(1);
+    }
+}
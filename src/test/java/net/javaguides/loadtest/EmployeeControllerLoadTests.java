@@ -0,0 +1,308 @@
+package net.javaguides.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.javaguides.model.Employee;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Open model load test for the employee endpoints. Requests are started at a fixed arrival rate whatever the
+ * server's response times are, and every latency is measured from the time the request was scheduled to start,
+ * so a stalled server shows up in the tail percentiles instead of silently lowering the request rate.
+ *
+ * <p>Excluded from the default build, run it with {@code ./mvnw -P load-test test} and tune it with
+ * {@code -Dloadtest.rate}, {@code -Dloadtest.duration}, {@code -Dloadtest.warmup}, {@code -Dloadtest.rows},
+ * {@code -Dloadtest.mix}, {@code -Dloadtest.report} and {@code -Dloadtest.max-p99-ms}.
+ */
+@Tag("load")
+@ActiveProfiles("h2")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class EmployeeControllerLoadTests {
+
+    private static final long HIGHEST_TRACKABLE_LATENCY = TimeUnit.MINUTES.toNanos(1);
+    private static final int SEED_BATCH_SIZE = 500;
+
+    private final int rate = Integer.getInteger("loadtest.rate", 200);
+    private final Duration duration = Duration.ofSeconds(Long.getLong("loadtest.duration", 30L));
+    private final Duration warmup = Duration.ofSeconds(Long.getLong("loadtest.warmup", 5L));
+    private final int rows = Integer.getInteger("loadtest.rows", 1000);
+    private final String mix = System.getProperty("loadtest.mix", "POST:10,GET:70,PUT:15,DELETE:5");
+    private final Path report = Path.of(System.getProperty("loadtest.report", "target/load-test-report.txt"));
+    private final long maxP99Millis = Long.getLong("loadtest.max-p99-ms", 0L);
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private final IdPool ids = new IdPool();
+    private final AtomicLong emailSequence = new AtomicLong();
+
+    private enum Operation { POST, GET, PUT, DELETE }
+
+    @DisplayName("Load test for the employee endpoints at a fixed arrival rate")
+    @Test
+    public void givenArrivalRate_whenDriveEndpointMix_thenRecordLatencyHistograms() throws Exception {
+        //given
+        seedEmployees();
+        Map<Operation, Integer> weights = parseMix(mix);
+        Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            stats.put(operation, new OperationStats());
+        }
+        OperationStats allStats = new OperationStats();
+
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        long warmupRequests = warmup.toNanos() / intervalNanos;
+        long totalRequests = warmupRequests + duration.toNanos() / intervalNanos;
+        CountDownLatch completed = new CountDownLatch(Math.toIntExact(totalRequests));
+        Random random = new Random(42);
+
+        //when
+        long start = System.nanoTime();
+        for (long i = 0; i < totalRequests; i++) {
+            long intendedStart = start + i * intervalNanos;
+            long delay;
+            while ((delay = intendedStart - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(delay);
+            }
+
+            boolean measured = i >= warmupRequests;
+            Operation operation = pick(weights, random);
+            send(operation).whenComplete((response, failure) -> {
+                long latency = System.nanoTime() - intendedStart;
+                if (measured) {
+                    stats.get(operation).record(latency, response, failure);
+                    allStats.record(latency, response, failure);
+                }
+                completed.countDown();
+            });
+        }
+        boolean finished = completed.await(1, TimeUnit.MINUTES);
+        double measuredSeconds = (System.nanoTime() - start - warmupRequests * intervalNanos) / 1e9;
+
+        //then
+        writeReport(stats, allStats, measuredSeconds);
+        assertThat(finished).isTrue();
+        assertThat(allStats.errors.sum()).isZero();
+        assertThat(allStats.serverErrors.sum()).isZero();
+        if (maxP99Millis > 0) {
+            assertThat(allStats.histogram.getValueAtPercentile(99) / 1_000_000.0).isLessThanOrEqualTo(maxP99Millis);
+        }
+    }
+
+    private void seedEmployees() throws IOException, InterruptedException {
+        for (int offset = 0; offset < rows; offset += SEED_BATCH_SIZE) {
+            List<Employee> batch = new ArrayList<>();
+            for (int i = offset; i < Math.min(rows, offset + SEED_BATCH_SIZE); i++) {
+                batch.add(newEmployee());
+            }
+            HttpResponse<String> response = httpClient.send(request("/batch")
+                    .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(batch)))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            assertThat(response.statusCode()).isEqualTo(201);
+            for (JsonNode employee : objectMapper.readTree(response.body())) {
+                ids.add(employee.get("id").asLong());
+            }
+        }
+    }
+
+    private CompletableFuture<HttpResponse<String>> send(Operation operation) {
+        switch (operation) {
+            case POST:
+                return sendAsync(request("").POST(body(newEmployee())).build())
+                        .thenApply(response -> {
+                            if (response.statusCode() == 201) {
+                                ids.add(readId(response.body()));
+                            }
+                            return response;
+                        });
+            case GET:
+                return sendAsync(request("/" + ids.any()).GET().build());
+            case PUT:
+                return sendAsync(request("/" + ids.any()).PUT(body(newEmployee())).build());
+            default:
+                return sendAsync(request("/" + ids.take()).DELETE().build());
+        }
+    }
+
+    private CompletableFuture<HttpResponse<String>> sendAsync(HttpRequest request) {
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/employees" + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json");
+    }
+
+    private HttpRequest.BodyPublisher body(Employee employee) {
+        try {
+            return HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(employee));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private long readId(String body) {
+        try {
+            return objectMapper.readTree(body).get("id").asLong();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    //Every request writes a fresh email so creates and updates never trip the unique index
+    private Employee newEmployee() {
+        long n = emailSequence.incrementAndGet();
+        return Employee.builder()
+                .firstName("First" + n)
+                .lastName("Last" + n)
+                .email("load" + n + "@javaguides.net")
+                .build();
+    }
+
+    private static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            weights.put(Operation.valueOf(parts[0].trim().toUpperCase()), Integer.parseInt(parts[1].trim()));
+        }
+        return weights;
+    }
+
+    private static Operation pick(Map<Operation, Integer> weights, Random random) {
+        int total = weights.values().stream().mapToInt(Integer::intValue).sum();
+        int value = random.nextInt(total);
+        for (Map.Entry<Operation, Integer> weight : weights.entrySet()) {
+            value -= weight.getValue();
+            if (value < 0) {
+                return weight.getKey();
+            }
+        }
+        throw new IllegalStateException("Empty load test mix");
+    }
+
+    private void writeReport(Map<Operation, OperationStats> stats, OperationStats allStats,
+                             double measuredSeconds) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (PrintStream out = new PrintStream(bytes, true, StandardCharsets.UTF_8)) {
+            out.printf("EmployeeControler load test %s%n", Instant.now());
+            out.printf("arrival rate %d req/s, %d s measured after %d s warm-up, %d seeded rows, mix %s%n%n",
+                    rate, duration.getSeconds(), warmup.getSeconds(), rows, mix);
+            out.printf("%-8s %8s %8s %8s %8s %8s %10s %9s %9s %9s %9s%n",
+                    "op", "count", "2xx", "4xx", "5xx", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+            for (Map.Entry<Operation, OperationStats> entry : stats.entrySet()) {
+                entry.getValue().print(out, entry.getKey().name(), measuredSeconds);
+            }
+            allStats.print(out, "ALL", measuredSeconds);
+
+            out.printf("%nALL latency distribution (ms)%n");
+            allStats.histogram.outputPercentileDistribution(out, 1_000_000.0);
+        }
+
+        Files.createDirectories(report.toAbsolutePath().getParent());
+        Files.write(report, bytes.toByteArray());
+        System.out.print(bytes.toString(StandardCharsets.UTF_8));
+    }
+
+    private static final class OperationStats {
+
+        private final Histogram histogram = new ConcurrentHistogram(HIGHEST_TRACKABLE_LATENCY, 3);
+        private final LongAdder successes = new LongAdder();
+        private final LongAdder clientErrors = new LongAdder();
+        private final LongAdder serverErrors = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+
+        void record(long latencyNanos, HttpResponse<?> response, Throwable failure) {
+            histogram.recordValue(Math.min(latencyNanos, HIGHEST_TRACKABLE_LATENCY));
+            if (failure != null) {
+                errors.increment();
+            } else if (response.statusCode() >= 500) {
+                serverErrors.increment();
+            } else if (response.statusCode() >= 400) {
+                clientErrors.increment();
+            } else {
+                successes.increment();
+            }
+        }
+
+        void print(PrintStream out, String name, double seconds) {
+            out.printf("%-8s %8d %8d %8d %8d %8d %10.1f %9.2f %9.2f %9.2f %9.2f%n",
+                    name, histogram.getTotalCount(), successes.sum(), clientErrors.sum(), serverErrors.sum(),
+                    errors.sum(), histogram.getTotalCount() / seconds,
+                    millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(99)),
+                    millis(histogram.getValueAtPercentile(99.9)), millis(histogram.getMaxValue()));
+        }
+
+        private static double millis(long nanos) {
+            return nanos / 1_000_000.0;
+        }
+    }
+
+    //Ids known to exist. GET and PUT pick any of them, DELETE removes the one it picks
+    private static final class IdPool {
+
+        private final List<Long> ids = new ArrayList<>();
+        private final Random random = new Random(7);
+
+        synchronized void add(long id) {
+            ids.add(id);
+        }
+
+        synchronized long any() {
+            return ids.isEmpty() ? 0L : ids.get(random.nextInt(ids.size()));
+        }
+
+        synchronized long take() {
+            if (ids.isEmpty()) {
+                return 0L;
+            }
+            int index = random.nextInt(ids.size());
+            long id = ids.get(index);
+            ids.set(index, ids.get(ids.size() - 1));
+            ids.remove(ids.size() - 1);
+            return id;
+        }
+    }
+}
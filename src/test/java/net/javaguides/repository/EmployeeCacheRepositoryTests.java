@@ -0,0 +1,161 @@
+package net.javaguides.repository;
+
+import net.javaguides.dto.EmployeeSummary;
+import net.javaguides.model.Employee;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//every repository call commits on its own, the caches only take what has been committed
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class EmployeeCacheRepositoryTests {
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Statistics statistics;
+
+    private Employee employee;
+
+    @BeforeEach
+    public void setup() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        employee = employeeRepository.save(Employee.builder()
+                .firstName("Jesus")
+                .lastName("Tapia")
+                .email("tapia@cache.com")
+                .build());
+        statistics.clear();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        employeeRepository.deleteAll();
+    }
+
+    @DisplayName("JUnit test for find employee by id served from the second-level cache")
+    @Test
+    public void givenSavedEmployee_whenFindById_thenReturnFromSecondLevelCache() {
+        //when - the employee was cached when its insert committed
+        Optional<Employee> found = employeeRepository.findById(employee.getId());
+
+        //then
+        assertThat(found).get().extracting(Employee::getEmail).isEqualTo("tapia@cache.com");
+        assertThat(statistics.getSecondLevelCacheHitCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    @DisplayName("JUnit test for find employee by email served from the query cache")
+    @Test
+    public void givenFoundByEmail_whenFindByEmail_thenReturnFromQueryCache() {
+        //given
+        employeeRepository.findByEmail("tapia@cache.com");
+
+        //when
+        Optional<Employee> found = employeeRepository.findByEmail("tapia@cache.com");
+
+        //then
+        assertThat(found).get().extracting(Employee::getId).isEqualTo(employee.getId());
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+        assertThat(statistics.getQueryExecutionCount()).isEqualTo(1);
+    }
+
+    @DisplayName("JUnit test for find employees by name served from the query cache")
+    @Test
+    public void givenSearchedByName_whenFindByName_thenReturnFromQueryCache() {
+        //given
+        employeeRepository.findByName("Jesus", "Tapia", PageRequest.of(0, 10));
+
+        //when
+        Slice<EmployeeSummary> found = employeeRepository.findByName("Jesus", "Tapia", PageRequest.of(0, 10));
+
+        //then
+        assertThat(found.getContent()).extracting(EmployeeSummary::getEmail).containsExactly("tapia@cache.com");
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+        assertThat(statistics.getQueryExecutionCount()).isEqualTo(1);
+    }
+
+    @DisplayName("JUnit test for cached find by email invalidated by an update")
+    @Test
+    public void givenCachedFindByEmail_whenPatchEmployee_thenFindByEmailQueriesDatabase() {
+        //given
+        employeeRepository.findByEmail("tapia@cache.com");
+
+        //when
+        new TransactionTemplate(transactionManager).executeWithoutResult(transaction ->
+                employeeRepository.patchEmployee(employee.getId(), null, null, "jesus@cache.com", null));
+
+        //then
+        assertThat(employeeRepository.findByEmail("tapia@cache.com")).isEmpty();
+        assertThat(employeeRepository.findByEmail("jesus@cache.com")).get()
+                .extracting(Employee::getVersion).isEqualTo(employee.getVersion() + 1);
+        assertThat(statistics.getQueryCacheHitCount()).isZero();
+    }
+
+    @DisplayName("JUnit test for a patch evicting only the patched employee from the second-level cache")
+    @Test
+    public void givenTwoCachedEmployees_whenPatchEmployee_thenOtherStaysCached() {
+        //given
+        Employee other = employeeRepository.save(Employee.builder()
+                .firstName("Azalia")
+                .lastName("Santiago")
+                .email("santiago@cache.com")
+                .build());
+
+        //when
+        new TransactionTemplate(transactionManager).executeWithoutResult(transaction ->
+                employeeRepository.patchEmployee(employee.getId(), null, null, "jesus@cache.com", null));
+        statistics.clear();
+
+        //then
+        assertThat(employeeRepository.findById(other.getId())).get().extracting(Employee::getEmail).isEqualTo("santiago@cache.com");
+        assertThat(statistics.getSecondLevelCacheHitCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(employeeRepository.findById(employee.getId())).get().extracting(Employee::getEmail).isEqualTo("jesus@cache.com");
+        assertThat(statistics.getEntityLoadCount()).isEqualTo(1);
+    }
+
+    @DisplayName("JUnit test for a delete evicting only the deleted employee from the second-level cache")
+    @Test
+    public void givenTwoCachedEmployees_whenDeleteEmployee_thenOtherStaysCached() {
+        //given
+        Employee other = employeeRepository.save(Employee.builder()
+                .firstName("Azalia")
+                .lastName("Santiago")
+                .email("santiago@cache.com")
+                .build());
+
+        //when
+        new TransactionTemplate(transactionManager).executeWithoutResult(transaction ->
+                employeeRepository.deleteEmployeeById(employee.getId()));
+        statistics.clear();
+
+        //then
+        assertThat(employeeRepository.findById(other.getId())).isPresent();
+        assertThat(statistics.getSecondLevelCacheHitCount()).isEqualTo(1);
+        assertThat(employeeRepository.findById(employee.getId())).isEmpty();
+    }
+}
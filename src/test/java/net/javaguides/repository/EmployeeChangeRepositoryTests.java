@@ -0,0 +1,71 @@
+package net.javaguides.repository;
+
+import net.javaguides.event.EmployeeChangedEvent;
+import net.javaguides.model.Employee;
+import net.javaguides.model.EmployeeChange;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+public class EmployeeChangeRepositoryTests {
+
+    @Autowired
+    private EmployeeChangeRepository changeRepository;
+
+    @DisplayName("JUnit test for changes after a cursor")
+    @Test
+    public void givenChanges_whenFindSince_thenReturnChangesAfterCursorInOrder() {
+        //given
+        Instant now = Instant.now();
+        EmployeeChange seen = changeRepository.save(change(EmployeeChangedEvent.created(employee(1L)), now.minusSeconds(10)));
+        EmployeeChange updated = changeRepository.save(change(EmployeeChangedEvent.updated(1L, employee(1L)), now.minusSeconds(5)));
+        EmployeeChange deleted = changeRepository.save(change(EmployeeChangedEvent.deleted(1L), now));
+        changeRepository.save(change(EmployeeChangedEvent.created(employee(2L)), now));
+
+        //when
+        List<EmployeeChange> changes = changeRepository.findSince(seen.getId(), PageRequest.of(0, 2));
+
+        //then
+        assertThat(changes).extracting(EmployeeChange::getId).containsExactly(updated.getId(), deleted.getId());
+        assertThat(changes.get(1).getType()).isEqualTo(EmployeeChangedEvent.Type.DELETED);
+        assertThat(changes.get(1).getEmail()).isNull();
+    }
+
+    @DisplayName("JUnit test for purging changes past the retention")
+    @Test
+    public void givenOldAndNewChanges_whenDeleteChangedBefore_thenOnlyOldOnesDeleted() {
+        //given
+        Instant now = Instant.now();
+        changeRepository.save(change(EmployeeChangedEvent.deleted(1L), now.minus(Duration.ofDays(8))));
+        EmployeeChange recent = changeRepository.save(change(EmployeeChangedEvent.deleted(2L), now));
+
+        //when
+        int purged = changeRepository.deleteChangedBefore(now.minus(Duration.ofDays(7)));
+
+        //then
+        assertThat(purged).isEqualTo(1);
+        assertThat(changeRepository.findAll()).extracting(EmployeeChange::getId).containsExactly(recent.getId());
+    }
+
+    private static EmployeeChange change(EmployeeChangedEvent event, Instant changedAt) {
+        return EmployeeChange.of(event, changedAt);
+    }
+
+    private static Employee employee(Long id) {
+        return Employee.builder()
+                .id(id)
+                .firstName("Jesus")
+                .lastName("Tapia")
+                .email("tapia" + id + "@hotmail.com")
+                .build();
+    }
+}
@@ -1,18 +1,24 @@
 package net.javaguides.repository;
 
+import net.javaguides.dto.EmployeeSummary;
 import net.javaguides.model.Employee;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
 
-@DataJpaTest
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
 public class EmployeeRepositoryTests {
 
     @Autowired
@@ -93,6 +99,36 @@ public class EmployeeRepositoryTests {
 
     }
 
+    @DisplayName("JUnit test for the unique index on email")
+    @Test
+    public void givenExistingEmail_whenSaveEmployee_thenThrowDataIntegrityViolation() {
+        //given
+        employeeRepository.saveAndFlush(employee);
+        Employee employee1 = Employee.builder()
+                .firstName("Azalia")
+                .lastName("Santiago")
+                .email(employee.getEmail())
+                .build();
+
+        //when - then
+        org.junit.jupiter.api.Assertions.assertThrows(DataIntegrityViolationException.class, () -> {
+            employeeRepository.saveAndFlush(employee1);
+        });
+    }
+
+    @DisplayName("JUnit test for finding which emails already exist")
+    @Test
+    public void givenEmployeeEmail_whenFindExistingEmails_thenReturnOnlyTakenEmails() {
+        //given
+        employeeRepository.save(employee);
+
+        //when
+        List<String> existingEmails = employeeRepository.findExistingEmails(List.of(employee.getEmail(), "new@gmail.com"));
+
+        //then
+        assertThat(existingEmails).containsExactly(employee.getEmail());
+    }
+
     @DisplayName("JUnit test for get update Employee operation")
     @Test
     public void givenEmployeeObject_whenUpdateEmployee_thenReturnUpdatedEmployee() {
@@ -112,6 +148,86 @@ public class EmployeeRepositoryTests {
 
     }
 
+    @DisplayName("JUnit test for partial update of supplied fields only")
+    @Test
+    public void givenEmployeeObject_whenPatchEmployee_thenUpdateOnlySuppliedFields() {
+        //given
+        employeeRepository.save(employee);
+
+        //when
+        int updatedRows = employeeRepository.patchEmployee(employee.getId(), "Michael", null, null, null);
+        Employee patchedEmployee = employeeRepository.findById(employee.getId()).get();
+
+        //then
+        assertThat(updatedRows).isEqualTo(1);
+        assertThat(patchedEmployee.getFirstName()).isEqualTo("Michael");
+        assertThat(patchedEmployee.getLastName()).isEqualTo("Tapia");
+        assertThat(patchedEmployee.getEmail()).isEqualTo("tapia0@hotamil.com");
+        assertThat(patchedEmployee.getVersion()).isEqualTo(1L);
+    }
+
+    @DisplayName("JUnit test for partial update with a stale version")
+    @Test
+    public void givenStaleVersion_whenPatchEmployee_thenUpdateNoRows() {
+        //given
+        employeeRepository.saveAndFlush(employee);
+
+        //when
+        int staleRows = employeeRepository.patchEmployee(employee.getId(), "Michael", null, null, 5L);
+        int currentRows = employeeRepository.patchEmployee(employee.getId(), "Michael", null, null, 0L);
+
+        //then
+        assertThat(staleRows).isZero();
+        assertThat(currentRows).isEqualTo(1);
+    }
+
+    @DisplayName("JUnit test for partial update of a missing employee")
+    @Test
+    public void givenInvalidEmployeeId_whenPatchEmployee_thenUpdateNoRows() {
+        //when
+        int updatedRows = employeeRepository.patchEmployee(404L, "Michael", null, null, null);
+
+        //then
+        assertThat(updatedRows).isZero();
+    }
+
+    @DisplayName("JUnit test to delete Employee Objects by ids")
+    @Test
+    public void givenEmployeesList_whenDeleteEmployeesByIds_thenRemoveListedEmployees() {
+        //given
+        Employee employee1 = Employee.builder()
+                .firstName("Azalia")
+                .lastName("Santiago")
+                .email("ledtere@gmail.com")
+                .build();
+        employeeRepository.saveAllAndFlush(List.of(employee, employee1));
+
+        //when
+        int deletedRows = employeeRepository.deleteEmployeesByIds(List.of(employee.getId(), 404L));
+        int missingRows = employeeRepository.deleteEmployeeById(employee.getId());
+
+        //then
+        assertThat(deletedRows).isEqualTo(1);
+        assertThat(missingRows).isZero();
+        assertThat(employeeRepository.findAll()).extracting(Employee::getEmail).containsExactly(employee1.getEmail());
+    }
+
+    @DisplayName("JUnit test to delete Employee Object only with the current version")
+    @Test
+    public void givenEmployeeVersion_whenDeleteByIdAndVersion_thenRemoveOnlyMatchingVersion() {
+        //given
+        employeeRepository.saveAndFlush(employee);
+
+        //when
+        int staleRows = employeeRepository.deleteByIdAndVersion(employee.getId(), 5L);
+        int currentRows = employeeRepository.deleteByIdAndVersion(employee.getId(), 0L);
+
+        //then
+        assertThat(staleRows).isZero();
+        assertThat(currentRows).isEqualTo(1);
+        assertThat(employeeRepository.findById(employee.getId())).isEmpty();
+    }
+
     @DisplayName("JUnit test to delete Employee Object")
     @Test
     public void givenEmployeeObject_whenDelete_thenRemoveEmployee() {
@@ -185,4 +301,79 @@ public class EmployeeRepositoryTests {
         //then
         assertThat(employeeByNativeSQL).isNotNull();
     }
+
+    @DisplayName("JUnit test for exact and prefix name search with a projection")
+    @Test
+    public void givenEmployeesList_whenFindByName_thenReturnMatchingSummaries() {
+        //given
+        Employee employee1 = Employee.builder()
+                .firstName("Jesus")
+                .lastName("Santiago")
+                .email("santiago@gmail.com")
+                .build();
+        Employee employee2 = Employee.builder()
+                .firstName("Jessica")
+                .lastName("Tapia")
+                .email("jessica@gmail.com")
+                .build();
+        employeeRepository.saveAll(List.of(employee, employee1, employee2));
+
+        //when
+        Slice<EmployeeSummary> exact = employeeRepository.findByName("Jesus", "Tapia", PageRequest.of(0, 10));
+        Slice<EmployeeSummary> prefix = employeeRepository.findByName("Jes%", "%", PageRequest.of(0, 2));
+        Slice<EmployeeSummary> escaped = employeeRepository.findByName("Jes!%", "%", PageRequest.of(0, 10));
+
+        //then
+        assertThat(exact.getContent()).extracting(EmployeeSummary::getEmail).containsExactly(employee.getEmail());
+        assertThat(prefix.getContent()).extracting(EmployeeSummary::getEmail)
+                .containsExactly(employee2.getEmail(), employee1.getEmail());
+        assertThat(prefix.hasNext()).isTrue();
+        assertThat(escaped.getContent()).isEmpty();
+    }
+
+    @DisplayName("JUnit test for keyset pagination query")
+    @Test
+    public void givenEmployeesList_whenFindPageAfter_thenReturnNextEmployeesById() {
+        //given
+        Employee employee1 = Employee.builder()
+                .firstName("Azalia")
+                .lastName("Santiago")
+                .email("ledtere@gmail.com")
+                .build();
+        Employee employee2 = Employee.builder()
+                .firstName("Michael")
+                .lastName("Tapia")
+                .email("michael@gmail.com")
+                .build();
+        employeeRepository.saveAll(List.of(employee, employee1, employee2));
+
+        //when
+        List<Employee> firstPage = employeeRepository.findPageAfter(0L, PageRequest.of(0, 2));
+        List<Employee> secondPage = employeeRepository.findPageAfter(firstPage.get(1).getId(), PageRequest.of(0, 2));
+
+        //then
+        assertThat(firstPage).extracting(Employee::getEmail).containsExactly(employee.getEmail(), employee1.getEmail());
+        assertThat(secondPage).extracting(Employee::getEmail).containsExactly(employee2.getEmail());
+    }
+
+    @DisplayName("JUnit test for streaming all employees ordered by id")
+    @Test
+    public void givenEmployeesList_whenStreamAll_thenStreamEmployeesOrderedById() {
+        //given
+        Employee employee1 = Employee.builder()
+                .firstName("Azalia")
+                .lastName("Santiago")
+                .email("ledtere@gmail.com")
+                .build();
+        employeeRepository.saveAll(List.of(employee, employee1));
+
+        //when
+        List<String> emails;
+        try (Stream<Employee> employees = employeeRepository.streamAll()) {
+            emails = employees.map(Employee::getEmail).collect(Collectors.toList());
+        }
+
+        //then
+        assertThat(emails).containsExactly(employee.getEmail(), employee1.getEmail());
+    }
 }
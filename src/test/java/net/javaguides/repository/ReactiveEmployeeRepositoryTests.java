@@ -0,0 +1,139 @@
+package net.javaguides.repository;
+
+import net.javaguides.dto.EmployeeSummary;
+import net.javaguides.model.EmployeeRow;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.r2dbc.DataR2dbcTest;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataR2dbcTest(properties = "spring.r2dbc.url=r2dbc:h2:mem:///reactive?options=DB_CLOSE_DELAY=-1;MODE=MySQL")
+public class ReactiveEmployeeRepositoryTests {
+
+    @Autowired
+    private ReactiveEmployeeRepository employeeRepository;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    //the table is created by Hibernate in the application, rows get their ids from its sequence
+    @BeforeEach
+    public void setup() {
+        databaseClient.sql("drop table if exists employee").then()
+                .then(databaseClient.sql("create table employee (id bigint primary key, fist_name varchar(255) not null, " +
+                        "last_name varchar(255) not null, email varchar(255) not null unique, version bigint default 0 not null)").then())
+                .then(insert(1L, "Jesus", "Tapia", "tapia0@hotamil.com"))
+                .then(insert(2L, "Azalia", "Santiago", "ledtere@gmail.com"))
+                .then(insert(3L, "Jessica", "Tapia", "jessica@gmail.com"))
+                .block();
+    }
+
+    @DisplayName("JUnit test for get employee by email operation")
+    @Test
+    public void givenEmployeeEmail_whenFindByEmail_thenReturnEmployeeObject() {
+        StepVerifier.create(employeeRepository.findByEmail("ledtere@gmail.com"))
+                .assertNext(employee -> {
+                    assertThat(employee.getId()).isEqualTo(2L);
+                    assertThat(employee.getFirstName()).isEqualTo("Azalia");
+                    assertThat(employee.getVersion()).isZero();
+                })
+                .verifyComplete();
+    }
+
+    @DisplayName("JUnit test for the derived and native name finders")
+    @Test
+    public void givenFirstNameAndLastName_whenFindByName_thenReturnEmployeeObject() {
+        StepVerifier.create(employeeRepository.findByFirstNameAndLastName("Jesus", "Tapia").map(EmployeeRow::getId))
+                .expectNext(1L)
+                .verifyComplete();
+        StepVerifier.create(employeeRepository.findByNativeSQLNamedParams("Jesus", "Tapia").map(EmployeeRow::getId))
+                .expectNext(1L)
+                .verifyComplete();
+    }
+
+    @DisplayName("JUnit test for prefix name search with a projection")
+    @Test
+    public void givenNamePrefix_whenFindByName_thenReturnSummariesInNameOrder() {
+        StepVerifier.create(employeeRepository.findByName("Jes%", "%", 10, 0).map(EmployeeSummary::getEmail).collectList())
+                .assertNext(emails -> assertThat(emails).containsExactly("jessica@gmail.com", "tapia0@hotamil.com"))
+                .verifyComplete();
+        StepVerifier.create(employeeRepository.findByName("Jes%", "%", 1, 1).map(EmployeeSummary::getId))
+                .expectNext(1L)
+                .verifyComplete();
+    }
+
+    @DisplayName("JUnit test for keyset pagination query")
+    @Test
+    public void givenEmployeesList_whenFindPageAfter_thenReturnNextEmployeesById() {
+        StepVerifier.create(employeeRepository.findPageAfter(1L, 1).map(EmployeeRow::getId))
+                .expectNext(2L)
+                .verifyComplete();
+    }
+
+    @DisplayName("JUnit test for streaming all employees with the subscriber's demand")
+    @Test
+    public void givenEmployeesList_whenStreamAll_thenEmitOnDemand() {
+        StepVerifier.create(employeeRepository.streamAll().map(EmployeeRow::getId), 1)
+                .expectNext(1L)
+                .thenRequest(2)
+                .expectNext(2L, 3L)
+                .verifyComplete();
+    }
+
+    @DisplayName("JUnit test to delete Employee Object by id")
+    @Test
+    public void givenEmployeeId_whenDeleteEmployeeById_thenReturnDeletedRows() {
+        StepVerifier.create(employeeRepository.deleteEmployeeById(1L)
+                        .concatWith(employeeRepository.deleteEmployeeById(1L)))
+                .expectNext(1, 0)
+                .verifyComplete();
+        StepVerifier.create(employeeRepository.findAll().map(EmployeeRow::getId).collectList())
+                .assertNext(ids -> assertThat(ids).isEqualTo(List.of(2L, 3L)))
+                .verifyComplete();
+    }
+
+    @DisplayName("JUnit test for recording a delete in the change outbox under the change lock")
+    @Test
+    public void givenChangeLock_whenInsertDeletedChange_thenWriteDeletedChange() {
+        //given - tables as Hibernate creates them in the application
+        databaseClient.sql("drop table if exists employee_change").then()
+                .then(databaseClient.sql("create table employee_change (id bigint auto_increment primary key, type varchar(16) not null, " +
+                        "employee_id bigint not null, first_name varchar(255), last_name varchar(255), email varchar(255), " +
+                        "changed_at timestamp not null)").then())
+                .then(databaseClient.sql("drop table if exists employee_change_lock").then())
+                .then(databaseClient.sql("create table employee_change_lock (id int primary key)").then())
+                .then(databaseClient.sql("insert into employee_change_lock (id) values (1)").then())
+                .block();
+
+        //when
+        StepVerifier.create(employeeRepository.lockChanges()
+                        .then(employeeRepository.insertDeletedChange(1L, LocalDateTime.now())))
+                .expectNext(1)
+                .verifyComplete();
+
+        //then
+        StepVerifier.create(databaseClient.sql("select type, employee_id from employee_change")
+                        .map(row -> row.get("type", String.class) + ":" + row.get("employee_id", Long.class))
+                        .all())
+                .expectNext("DELETED:1")
+                .verifyComplete();
+    }
+
+    private Mono<Void> insert(Long id, String firstName, String lastName, String email) {
+        return databaseClient.sql("insert into employee (id, fist_name, last_name, email) values (:id, :firstName, :lastName, :email)")
+                .bind("id", id)
+                .bind("firstName", firstName)
+                .bind("lastName", lastName)
+                .bind("email", email)
+                .then();
+    }
+}
@@ -0,0 +1,69 @@
+package net.javaguides.service;
+
+import net.javaguides.repository.EmployeeRepository;
+import net.javaguides.service.impl.EmailBloomFilter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(MockitoExtension.class)
+public class EmailBloomFilterTests {
+
+    @Mock
+    private EmployeeRepository employeeRepository;
+
+    private EmailBloomFilter emailBloomFilter;
+
+    @BeforeEach
+    public void setup() {
+        emailBloomFilter = new EmailBloomFilter(employeeRepository, 10_000, 0.01);
+    }
+
+    @DisplayName("JUnit test for mightContain before the filter is warmed up")
+    @Test
+    public void givenFilterNotWarmedUp_whenMightContain_thenReturnTrue() {
+        assertThat(emailBloomFilter.mightContain("chucholuco@gmail.com")).isTrue();
+    }
+
+    @DisplayName("JUnit test for mightContain on stored and new emails")
+    @Test
+    public void givenStoredEmails_whenMightContain_thenNeverMissStoredEmails() {
+        //given
+        given(employeeRepository.streamAllEmails()).willReturn(
+                IntStream.range(0, 10_000).mapToObj(i -> "employee" + i + "@gmail.com"));
+
+        //when
+        emailBloomFilter.warmUp();
+        emailBloomFilter.add("chucholuco@gmail.com");
+
+        //then
+        assertThat(IntStream.range(0, 10_000)).allMatch(i -> emailBloomFilter.mightContain("employee" + i + "@gmail.com"));
+        assertThat(emailBloomFilter.mightContain("CHUCHOLUCO@gmail.com")).isTrue();
+        long falsePositives = IntStream.range(0, 10_000)
+                .filter(i -> emailBloomFilter.mightContain("new" + i + "@gmail.com"))
+                .count();
+        assertThat(falsePositives).isLessThan(300);
+    }
+
+    @DisplayName("JUnit test for mightContain on an empty table")
+    @Test
+    public void givenNoStoredEmails_whenMightContain_thenReturnFalse() {
+        //given
+        given(employeeRepository.streamAllEmails()).willReturn(Stream.empty());
+
+        //when
+        emailBloomFilter.warmUp();
+
+        //then
+        assertThat(emailBloomFilter.mightContain("chucholuco@gmail.com")).isFalse();
+    }
+}
@@ -0,0 +1,197 @@
+package net.javaguides.service;
+
+import net.javaguides.event.EmployeeChangedEvent;
+import net.javaguides.model.Employee;
+import net.javaguides.model.EmployeeChange;
+import net.javaguides.model.EmployeeChangeLock;
+import net.javaguides.repository.EmployeeChangeLockRepository;
+import net.javaguides.repository.EmployeeChangeRepository;
+import net.javaguides.service.impl.EmployeeChangeFeed;
+import org.hibernate.Session;
+import org.hibernate.jdbc.Work;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import javax.persistence.EntityManager;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+public class EmployeeChangeFeedTests {
+
+    @Mock
+    private EmployeeChangeRepository changeRepository;
+
+    @Mock
+    private EmployeeChangeLockRepository lockRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private Session session;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private PreparedStatement insert;
+
+    private EmployeeChangeFeed changeFeed;
+
+    @BeforeEach
+    public void setup() {
+        changeFeed = new EmployeeChangeFeed(changeRepository, lockRepository, entityManager, Duration.ofMillis(10), Duration.ofDays(7));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (changeFeed.isRunning()) {
+            changeFeed.stop();
+        }
+    }
+
+    @DisplayName("JUnit test for the changes of a transaction inserted as one batch under one lock")
+    @Test
+    public void givenChangesInTransaction_whenCommit_thenInsertBatchOnce() throws Exception {
+        //given
+        Employee employee = Employee.builder().id(1L).firstName("Jesus").lastName("Tapia").email("tapia0@hotmail.com").build();
+        given(lockRepository.lockChanges()).willReturn(Optional.of(new EmployeeChangeLock(EmployeeChangeLock.ID)));
+        given(entityManager.unwrap(Session.class)).willReturn(session);
+        willAnswer(invocation -> {
+            invocation.<Work>getArgument(0).execute(connection);
+            return null;
+        }).given(session).doWork(any());
+        given(connection.prepareStatement(anyString())).willReturn(insert);
+
+        //when
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            changeFeed.record(EmployeeChangedEvent.created(employee));
+            changeFeed.record(EmployeeChangedEvent.updated(1L, employee));
+            changeFeed.record(EmployeeChangedEvent.deleted(1L));
+            verifyNoInteractions(lockRepository, entityManager);
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            TransactionSynchronizationUtils.triggerBeforeCommit(false);
+            TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations, TransactionSynchronization.STATUS_COMMITTED);
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        //then
+        InOrder inOrder = inOrder(lockRepository, insert);
+        inOrder.verify(lockRepository).lockChanges();
+        inOrder.verify(insert).setString(1, "CREATED");
+        inOrder.verify(insert).setString(1, "UPDATED");
+        inOrder.verify(insert).setString(1, "DELETED");
+        inOrder.verify(insert).executeBatch();
+        verify(lockRepository, times(1)).lockChanges();
+        verify(insert, times(3)).addBatch();
+        verify(insert, times(2)).setString(5, "tapia0@hotmail.com");
+        assertThat(TransactionSynchronizationManager.getResource(changeFeed)).isNull();
+    }
+
+    @DisplayName("JUnit test for a change published outside a transaction left to the reactive delete")
+    @Test
+    public void givenNoTransaction_whenRecord_thenInsertNothing() {
+        //when
+        changeFeed.record(EmployeeChangedEvent.deleted(1L));
+
+        //then
+        verifyNoInteractions(lockRepository, entityManager, changeRepository);
+    }
+
+    @DisplayName("JUnit test for the change lock row created at startup")
+    @Test
+    public void givenNoChangeLock_whenStart_thenCreateChangeLock() {
+        //given
+        given(lockRepository.existsById(EmployeeChangeLock.ID)).willReturn(false);
+
+        //when
+        changeFeed.start();
+
+        //then
+        ArgumentCaptor<EmployeeChangeLock> lock = ArgumentCaptor.forClass(EmployeeChangeLock.class);
+        verify(lockRepository).save(lock.capture());
+        assertThat(lock.getValue().getId()).isEqualTo(EmployeeChangeLock.ID);
+    }
+
+    @DisplayName("JUnit test for changes already there answered at once")
+    @Test
+    public void givenChanges_whenAwaitChangesSince_thenCompleteImmediately() {
+        //given
+        given(changeRepository.findSince(eq(0L), any())).willReturn(List.of(change(1L)));
+
+        //when
+        CompletableFuture<List<EmployeeChange>> changes = changeFeed.awaitChangesSince(0, 10, Duration.ofSeconds(30));
+
+        //then
+        assertThat(changes).isCompletedWithValueMatching(list -> list.size() == 1);
+    }
+
+    @DisplayName("JUnit test for a long-poll answered by the background check")
+    @Test
+    public void givenNoChangesYet_whenChangeArrives_thenCompleteWaiter() throws Exception {
+        //given
+        AtomicReference<List<EmployeeChange>> committed = new AtomicReference<>(List.of());
+        given(changeRepository.findSince(anyLong(), any())).willAnswer(invocation -> committed.get());
+        given(lockRepository.existsById(EmployeeChangeLock.ID)).willReturn(true);
+        changeFeed.start();
+        CompletableFuture<List<EmployeeChange>> changes = changeFeed.awaitChangesSince(1, 10, Duration.ofSeconds(30));
+        assertThat(changes).isNotDone();
+
+        //when
+        committed.set(List.of(change(2L), change(3L)));
+
+        //then
+        assertThat(changes.get(5, TimeUnit.SECONDS)).extracting(EmployeeChange::getId).containsExactly(2L, 3L);
+        verify(changeRepository).deleteChangedBefore(any());
+    }
+
+    @DisplayName("JUnit test for a long-poll without changes timing out empty")
+    @Test
+    public void givenNoChanges_whenWaitIsOver_thenCompleteEmpty() throws Exception {
+        //given
+        given(changeRepository.findSince(anyLong(), any())).willReturn(List.of());
+
+        //when
+        CompletableFuture<List<EmployeeChange>> changes = changeFeed.awaitChangesSince(0, 10, Duration.ofMillis(50));
+
+        //then
+        assertThat(changes.get(5, TimeUnit.SECONDS)).isEmpty();
+    }
+
+    private static EmployeeChange change(Long id) {
+        return EmployeeChange.builder().id(id).type(EmployeeChangedEvent.Type.DELETED).employeeId(id).build();
+    }
+}
@@ -0,0 +1,115 @@
+package net.javaguides.service;
+
+import net.javaguides.model.Employee;
+import net.javaguides.repository.EmployeeRepository;
+import net.javaguides.service.impl.EmployeeLookupCoalescer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class EmployeeLookupCoalescerTests {
+
+    @Mock
+    private EmployeeRepository employeeRepository;
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    public void setup() {
+        executor = Executors.newFixedThreadPool(8);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @DisplayName("JUnit test for concurrent lookups merged into one query")
+    @Test
+    public void givenConcurrentLookups_whenFindById_thenQueryOnceForAllIds() throws Exception {
+        //given
+        EmployeeLookupCoalescer coalescer = new EmployeeLookupCoalescer(employeeRepository, true, Duration.ofMillis(200), 100);
+        List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        given(employeeRepository.findAllById(any())).willAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            batchSizes.add(ids.size());
+            return ids.stream()
+                    .filter(id -> id != 8L)
+                    .map(id -> Employee.builder().id(id).email(id + "@gmail.com").build())
+                    .collect(Collectors.toList());
+        });
+
+        //when
+        List<CompletableFuture<Optional<Employee>>> results = new ArrayList<>();
+        for (long id = 1; id <= 8; id++) {
+            long employeeId = id;
+            results.add(CompletableFuture.supplyAsync(() -> coalescer.findById(employeeId), executor));
+        }
+
+        //then
+        for (int i = 0; i < 7; i++) {
+            assertThat(results.get(i).get()).map(Employee::getId).contains(i + 1L);
+        }
+        assertThat(results.get(7).get()).isEmpty();
+        //the lookups are submitted together, a slow thread start may still miss the first window
+        assertThat(batchSizes).hasSizeLessThanOrEqualTo(2);
+        assertThat(batchSizes.stream().mapToInt(Integer::intValue).sum()).isEqualTo(8);
+    }
+
+    @DisplayName("JUnit test for a full batch queried before the window ends")
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenFullBatch_whenFindById_thenQueryWithoutWaitingForWindow() throws Exception {
+        //given
+        EmployeeLookupCoalescer coalescer = new EmployeeLookupCoalescer(employeeRepository, true, Duration.ofMinutes(1), 2);
+        given(employeeRepository.findAllById(any())).willAnswer(invocation -> ((Collection<Long>) invocation.getArgument(0)).stream()
+                .map(id -> Employee.builder().id(id).build())
+                .collect(Collectors.toList()));
+
+        //when
+        CompletableFuture<Optional<Employee>> first = CompletableFuture.supplyAsync(() -> coalescer.findById(1L), executor);
+        CompletableFuture<Optional<Employee>> second = CompletableFuture.supplyAsync(() -> coalescer.findById(2L), executor);
+
+        //then
+        assertThat(second.get(10, TimeUnit.SECONDS)).map(Employee::getId).contains(2L);
+        assertThat(first.get(10, TimeUnit.SECONDS)).map(Employee::getId).contains(1L);
+        verify(employeeRepository, times(1)).findAllById(any());
+    }
+
+    @DisplayName("JUnit test for a failed batch query")
+    @Test
+    public void givenFailingQuery_whenFindById_thenRethrowException() {
+        //given
+        EmployeeLookupCoalescer coalescer = new EmployeeLookupCoalescer(employeeRepository, true, Duration.ofMillis(1), 100);
+        given(employeeRepository.findAllById(any())).willThrow(new IllegalStateException("database down"));
+
+        //when - then
+        assertThatThrownBy(() -> coalescer.findById(1L))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("database down");
+    }
+}
@@ -0,0 +1,153 @@
+package net.javaguides.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.javaguides.dto.EmployeePage;
+import net.javaguides.event.EmployeeChangedEvent;
+import net.javaguides.model.Employee;
+import net.javaguides.service.impl.EmployeePageCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class EmployeePageCacheTests {
+
+    @Mock
+    private EmployeeService employeeService;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private EmployeePageCache pageCache;
+
+    @BeforeEach
+    public void setup() {
+        pageCache = new EmployeePageCache(employeeService, transactionManager, objectMapper, DataSize.ofMegabytes(1), Duration.ofHours(1), Duration.ZERO);
+    }
+
+    @DisplayName("JUnit test for a page served from the cache until an employee changes")
+    @Test
+    public void givenCachedPage_whenGetPageAgain_thenQueryOnlyAfterChange() {
+        //given
+        given(employeeService.getEmployeesPage(null, 100))
+                .willReturn(new EmployeePage(List.of(employee(1)), null), new EmployeePage(List.of(employee(2)), null));
+        EmployeePageCache.CachedPage first = pageCache.getPage(null, 100);
+
+        //when
+        EmployeePageCache.CachedPage cached = pageCache.getPage(null, 100);
+        pageCache.onEmployeeChanged(EmployeeChangedEvent.created(employee(2)));
+        EmployeePageCache.CachedPage changed = pageCache.getPage(null, 100);
+
+        //then
+        assertThat(cached).isSameAs(first);
+        assertThat(changed.getETag()).isNotEqualTo(first.getETag());
+        assertThat(new String(changed.getJson())).contains(employee(2).getEmail());
+        verify(employeeService, times(2)).getEmployeesPage(null, 100);
+    }
+
+    @DisplayName("JUnit test for a page built while an employee changed not served afterwards")
+    @Test
+    public void givenChangeDuringBuild_whenGetPage_thenRebuildPage() {
+        //given
+        given(employeeService.getEmployeesPage(null, 100)).willAnswer(invocation -> {
+            //the change commits after the query read the page, before the page is cached
+            pageCache.onEmployeeChanged(EmployeeChangedEvent.created(employee(2)));
+            return new EmployeePage(List.of(employee(1)), null);
+        }).willReturn(new EmployeePage(List.of(employee(1), employee(2)), null));
+        pageCache.getPage(null, 100);
+
+        //when
+        EmployeePageCache.CachedPage page = pageCache.getPage(null, 100);
+
+        //then
+        assertThat(new String(page.getJson())).contains(employee(2).getEmail());
+        verify(employeeService, times(2)).getEmployeesPage(null, 100);
+    }
+
+    @DisplayName("JUnit test for a page rebuilt with the same content keeping its Last-Modified")
+    @Test
+    public void givenUnchangedContent_whenRebuiltAfterChange_thenKeepLastModified() throws InterruptedException {
+        //given
+        given(employeeService.getEmployeesPage(null, 100)).willReturn(new EmployeePage(List.of(employee(1)), null));
+        EmployeePageCache.CachedPage first = pageCache.getPage(null, 100);
+        //the rebuild starts in a later second than the first build
+        Thread.sleep(Duration.between(Instant.now(), first.getLastModified().plusSeconds(1)).toMillis() + 10);
+
+        //when - another page changed
+        pageCache.onEmployeeChanged(EmployeeChangedEvent.created(employee(200)));
+        EmployeePageCache.CachedPage rebuilt = pageCache.getPage(null, 100);
+
+        //then
+        assertThat(rebuilt).isNotSameAs(first);
+        assertThat(rebuilt.getETag()).isEqualTo(first.getETag());
+        assertThat(rebuilt.getLastModified()).isEqualTo(first.getLastModified());
+    }
+
+    @DisplayName("JUnit test for a page changed within the second of its build getting a later Last-Modified")
+    @Test
+    public void givenChangedContent_whenRebuiltInSameSecond_thenLaterLastModified() {
+        //given
+        given(employeeService.getEmployeesPage(null, 100))
+                .willReturn(new EmployeePage(List.of(employee(1)), null), new EmployeePage(List.of(employee(2)), null));
+        EmployeePageCache.CachedPage first = pageCache.getPage(null, 100);
+
+        //when
+        pageCache.onEmployeeChanged(EmployeeChangedEvent.created(employee(2)));
+        EmployeePageCache.CachedPage changed = pageCache.getPage(null, 100);
+
+        //then - an If-Modified-Since of the first page doesn't match
+        assertThat(changed.getETag()).isNotEqualTo(first.getETag());
+        assertThat(changed.getLastModified()).isAfter(first.getLastModified());
+    }
+
+    @DisplayName("JUnit test for a gzip copy kept only for pages worth compressing")
+    @Test
+    public void givenSmallAndLargePage_whenGetPage_thenGzipOnlyLargePage() throws IOException {
+        //given
+        given(employeeService.getEmployeesPage(null, 1)).willReturn(new EmployeePage(List.of(employee(1)), 1L));
+        Employee[] employees = new Employee[100];
+        for (int i = 0; i < employees.length; i++) {
+            employees[i] = employee(i + 1);
+        }
+        given(employeeService.getEmployeesPage(null, 100)).willReturn(new EmployeePage(List.of(employees), null));
+
+        //when
+        EmployeePageCache.CachedPage small = pageCache.getPage(null, 1);
+        EmployeePageCache.CachedPage large = pageCache.getPage(null, 100);
+
+        //then
+        assertThat(small.getGzip()).isNull();
+        assertThat(small.getNextCursor()).isEqualTo(1L);
+        assertThat(large.getGzip().length).isLessThan(large.getJson().length);
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(large.getGzip()))) {
+            assertThat(gzip.readAllBytes()).isEqualTo(large.getJson());
+        }
+    }
+
+    private static Employee employee(long id) {
+        return Employee.builder()
+                .id(id)
+                .firstName("First" + id)
+                .lastName("Last" + id)
+                .email("employee" + id + "@example.com")
+                .build();
+    }
+}
@@ -0,0 +1,96 @@
+package net.javaguides.service;
+
+import net.javaguides.dto.EmployeeSummary;
+import net.javaguides.event.EmployeeChangedEvent;
+import net.javaguides.model.Employee;
+import net.javaguides.repository.EmployeeRepository;
+import net.javaguides.service.impl.EmployeeSearchIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(MockitoExtension.class)
+public class EmployeeSearchIndexTests {
+
+    @Mock
+    private EmployeeRepository employeeRepository;
+
+    private EmployeeSearchIndex employeeSearchIndex;
+
+    @BeforeEach
+    public void setup() {
+        employeeSearchIndex = new EmployeeSearchIndex(employeeRepository, 0.5);
+
+        SpelAwareProxyProjectionFactory projectionFactory = new SpelAwareProxyProjectionFactory();
+        given(employeeRepository.streamAllSummaries()).willReturn(Stream.of(
+                employee(1L, "Jesus", "Tapia", "tapia0@hotmail.com"),
+                employee(2L, "Azalia", "Santiago", "ledtere@gmail.com"),
+                employee(3L, "Jessica", "Tapia", "jessica@gmail.com"))
+                .map(employee -> projectionFactory.createProjection(EmployeeSummary.class, employee)));
+        employeeSearchIndex.warmUp();
+    }
+
+    @DisplayName("JUnit test for search by a word prefix")
+    @Test
+    public void givenIndexedEmployees_whenSearchPrefix_thenReturnMatchingEmployees() {
+        //when
+        List<EmployeeSummary> results = employeeSearchIndex.search("jes", 10);
+
+        //then
+        assertThat(results).extracting(EmployeeSummary::getId).containsExactlyInAnyOrder(1L, 3L);
+    }
+
+    @DisplayName("JUnit test for search ranking and typo tolerance")
+    @Test
+    public void givenMisspelledQuery_whenSearch_thenRankBestMatchFirst() {
+        //when
+        List<EmployeeSummary> exact = employeeSearchIndex.search("Jesus Tapia", 10);
+        List<EmployeeSummary> misspelled = employeeSearchIndex.search("santaigo", 10);
+
+        //then
+        assertThat(exact).extracting(EmployeeSummary::getId).startsWith(1L);
+        assertThat(misspelled).extracting(EmployeeSummary::getId).containsExactly(2L);
+    }
+
+    @DisplayName("JUnit test for search on email words and the result limit")
+    @Test
+    public void givenEmailQuery_whenSearchWithLimit_thenReturnAtMostLimit() {
+        //when
+        List<EmployeeSummary> results = employeeSearchIndex.search("gmail", 1);
+
+        //then
+        assertThat(results).hasSize(1);
+        assertThat(employeeSearchIndex.search("", 10)).isEmpty();
+    }
+
+    @DisplayName("JUnit test for keeping the index current from change events")
+    @Test
+    public void givenChangeEvents_whenSearch_thenReflectChanges() {
+        //when
+        employeeSearchIndex.onEmployeeChanged(EmployeeChangedEvent.created(employee(4L, "Michael", "Jordan", "mj@gmail.com")));
+        employeeSearchIndex.onEmployeeChanged(EmployeeChangedEvent.updated(2L, Employee.builder().id(2L).lastName("Romero").build()));
+        employeeSearchIndex.onEmployeeChanged(EmployeeChangedEvent.deleted(3L));
+
+        //then
+        assertThat(employeeSearchIndex.search("michael", 10)).extracting(EmployeeSummary::getId).containsExactly(4L);
+        assertThat(employeeSearchIndex.search("santiago", 10)).isEmpty();
+        assertThat(employeeSearchIndex.search("azalia romero", 10)).extracting(EmployeeSummary::getEmail)
+                .containsExactly("ledtere@gmail.com");
+        assertThat(employeeSearchIndex.search("jessica", 10)).isEmpty();
+        assertThat(employeeSearchIndex.size()).isEqualTo(3);
+    }
+
+    private static Employee employee(Long id, String firstName, String lastName, String email) {
+        return Employee.builder().id(id).firstName(firstName).lastName(lastName).email(email).build();
+    }
+}
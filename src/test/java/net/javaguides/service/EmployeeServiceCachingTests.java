@@ -0,0 +1,173 @@
+package net.javaguides.service;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import net.javaguides.config.CacheConfig;
+import net.javaguides.model.Employee;
+import net.javaguides.repository.EmployeeRepository;
+import net.javaguides.service.impl.EmailBloomFilter;
+import net.javaguides.service.impl.EmployeeLookupCoalescer;
+import net.javaguides.service.impl.EmployeeSearchIndex;
+import net.javaguides.service.impl.EmployeeServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.cache.CacheAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import javax.persistence.EntityManager;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@SpringBootTest(classes = {EmployeeServiceImpl.class, CacheConfig.class})
+@ImportAutoConfiguration(CacheAutoConfiguration.class)
+public class EmployeeServiceCachingTests {
+
+    @MockBean
+    private EmployeeRepository employeeRepository;
+    @MockBean
+    private EntityManager entityManager;
+    @MockBean
+    private EmailBloomFilter emailBloomFilter;
+    @MockBean
+    private EmployeeSearchIndex employeeSearchIndex;
+    @MockBean
+    private EmployeeLookupCoalescer employeeLookupCoalescer;
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private Employee employee;
+
+    @BeforeEach
+    public void setup() {
+        cacheManager.getCache(CacheConfig.EMPLOYEES_CACHE).clear();
+        employee = Employee.builder()
+                .id(1L)
+                .firstName("Jesus")
+                .lastName("Tapia")
+                .email("chucholuco@gmail.com")
+                .build();
+    }
+
+    @DisplayName("JUnit test for getEmployeeById served from the cache")
+    @Test
+    public void givenCachedEmployee_whenGetEmployeeById_thenRepositoryIsQueriedOnce() {
+        //given
+        given(employeeRepository.findById(1L)).willReturn(Optional.of(employee));
+        CacheStats statsBefore = cacheStats();
+
+        //when
+        employeeService.getEmployeeById(1L);
+        Optional<Employee> cachedEmployee = employeeService.getEmployeeById(1L);
+
+        //then
+        assertThat(cachedEmployee).contains(employee);
+        verify(employeeRepository, times(1)).findById(1L);
+        CacheStats stats = cacheStats().minus(statsBefore);
+        assertThat(stats.hitCount()).isEqualTo(1);
+        assertThat(stats.missCount()).isEqualTo(1);
+    }
+
+    @DisplayName("JUnit test for getEmployeeById not caching missing employees")
+    @Test
+    public void givenMissingEmployee_whenGetEmployeeById_thenRepositoryIsQueriedEveryTime() {
+        //given
+        given(employeeRepository.findById(1L)).willReturn(Optional.empty());
+
+        //when
+        employeeService.getEmployeeById(1L);
+        Optional<Employee> missingEmployee = employeeService.getEmployeeById(1L);
+
+        //then
+        assertThat(missingEmployee).isEmpty();
+        verify(employeeRepository, times(2)).findById(1L);
+    }
+
+    @DisplayName("JUnit test for updateEmployee refreshing the cached employee")
+    @Test
+    public void givenUpdatedEmployee_whenGetEmployeeById_thenReturnUpdatedEmployeeFromCache() {
+        //given
+        Employee updatedEmployee = Employee.builder()
+                .id(1L)
+                .firstName("Azalia")
+                .lastName("Santiago")
+                .email("ledtere@gmail.com")
+                .build();
+        given(employeeRepository.save(updatedEmployee)).willReturn(updatedEmployee);
+
+        //when
+        employeeService.updateEmployee(updatedEmployee);
+        Optional<Employee> cachedEmployee = employeeService.getEmployeeById(1L);
+
+        //then
+        assertThat(cachedEmployee).contains(updatedEmployee);
+        verify(employeeRepository, times(0)).findById(1L);
+    }
+
+    @DisplayName("JUnit test for deleteEmployee evicting the cached employee")
+    @Test
+    public void givenDeletedEmployee_whenGetEmployeeById_thenRepositoryIsQueriedAgain() {
+        //given
+        given(employeeRepository.findById(1L)).willReturn(Optional.of(employee));
+        employeeService.getEmployeeById(1L);
+
+        given(employeeRepository.deleteEmployeeById(1L)).willReturn(1);
+
+        //when
+        employeeService.deleteEmployee(1L);
+        employeeService.getEmployeeById(1L);
+
+        //then
+        verify(employeeRepository, times(2)).findById(1L);
+    }
+
+    @DisplayName("JUnit test for updateEmployee not caching the employee when its transaction rolls back")
+    @Test
+    public void givenRolledBackUpdate_whenGetEmployeeById_thenRepositoryIsQueried() {
+        //given
+        Employee updatedEmployee = Employee.builder()
+                .id(1L)
+                .firstName("Azalia")
+                .lastName("Santiago")
+                .email("ledtere@gmail.com")
+                .build();
+        given(employeeRepository.save(updatedEmployee)).willReturn(updatedEmployee);
+        given(employeeRepository.findById(1L)).willReturn(Optional.of(employee));
+
+        //when
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            employeeService.updateEmployee(updatedEmployee);
+            TransactionSynchronizationUtils.invokeAfterCompletion(
+                    TransactionSynchronizationManager.getSynchronizations(), TransactionSynchronization.STATUS_ROLLED_BACK);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        Optional<Employee> foundEmployee = employeeService.getEmployeeById(1L);
+
+        //then
+        assertThat(foundEmployee).contains(employee);
+        verify(employeeRepository, times(1)).findById(1L);
+    }
+
+    private CacheStats cacheStats() {
+        TransactionAwareCacheDecorator cache = (TransactionAwareCacheDecorator) cacheManager.getCache(CacheConfig.EMPLOYEES_CACHE);
+        return ((CaffeineCache) cache.getTargetCache()).getNativeCache().stats();
+    }
+}
@@ -1,28 +1,42 @@
 package net.javaguides.service;
 
+import net.javaguides.dto.EmployeePage;
+import net.javaguides.event.EmployeeChangedEvent;
 import net.javaguides.exception.ResourceNotFoundException;
 import net.javaguides.model.Employee;
 import net.javaguides.repository.EmployeeRepository;
+import net.javaguides.service.impl.EmailBloomFilter;
+import net.javaguides.service.impl.EmployeeLookupCoalescer;
+import net.javaguides.service.impl.EmployeeSearchIndex;
 import net.javaguides.service.impl.EmployeeServiceImpl;
+import org.hibernate.exception.ConstraintViolationException;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.BDDMockito;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
-
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+
+import javax.persistence.EntityManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given;
-import static org.mockito.BDDMockito.willDoNothing;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -30,6 +44,16 @@ public class EmployeeServiceTests {
 
     @Mock
     private EmployeeRepository employeeRepository;
+    @Mock
+    private EntityManager entityManager;
+    @Mock
+    private EmailBloomFilter emailBloomFilter;
+    @Mock
+    private EmployeeSearchIndex employeeSearchIndex;
+    @Mock
+    private EmployeeLookupCoalescer employeeLookupCoalescer;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
     @InjectMocks
     private EmployeeServiceImpl employeeService;
 
@@ -52,10 +76,9 @@ public class EmployeeServiceTests {
     @Test
     public void givenEmployeeObject_whenSaveEmployee_thenReturnEmployeeObject() {
         //given
+        given(emailBloomFilter.mightContain(employee.getEmail())).willReturn(false);
 
-        given(employeeRepository.findByEmail(employee.getEmail())).willReturn(Optional.empty());
-
-        given(employeeRepository.save(employee)).willReturn(employee);
+        given(employeeRepository.saveAndFlush(employee)).willReturn(employee);
         System.out.println(employeeRepository);
         System.out.println(employeeService);
 
@@ -63,6 +86,27 @@ public class EmployeeServiceTests {
         Employee savedEmployee = employeeService.saveEmployee(employee);
         System.out.println(savedEmployee);
 
+        //then
+        assertThat(savedEmployee).isNotNull();
+        verify(employeeRepository, never()).findByEmail(any());
+        verify(emailBloomFilter).add(employee.getEmail());
+        ArgumentCaptor<EmployeeChangedEvent> event = ArgumentCaptor.forClass(EmployeeChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertThat(event.getValue().getType()).isEqualTo(EmployeeChangedEvent.Type.CREATED);
+        assertThat(event.getValue().getEmployee()).isSameAs(employee);
+    }
+
+    @DisplayName("JUnit test for saveEmployee method when the email may already exist")
+    @Test
+    public void givenPossiblyExistingEmail_whenSaveEmployee_thenCheckEmailAndReturnEmployeeObject() {
+        //given
+        given(emailBloomFilter.mightContain(employee.getEmail())).willReturn(true);
+        given(employeeRepository.findByEmail(employee.getEmail())).willReturn(Optional.empty());
+        given(employeeRepository.saveAndFlush(employee)).willReturn(employee);
+
+        //when
+        Employee savedEmployee = employeeService.saveEmployee(employee);
+
         //then
         assertThat(savedEmployee).isNotNull();
     }
@@ -71,6 +115,7 @@ public class EmployeeServiceTests {
     @Test
     public void givenExistingEmail_whenSaveEmployee_thenReturnThrowsException() {
         //given
+        given(emailBloomFilter.mightContain(employee.getEmail())).willReturn(true);
         given(employeeRepository.findByEmail(employee.getEmail())).willReturn(Optional.of(employee));
 
         //when
@@ -80,6 +125,83 @@ public class EmployeeServiceTests {
 
         //then
         verify(employeeRepository, never()).save(any(Employee.class));
+        verify(employeeRepository, never()).saveAndFlush(any(Employee.class));
+    }
+
+    @DisplayName("JUnit test for saveEmployee method which throws Exception on the email unique index")
+    @Test
+    public void givenEmailRejectedByUniqueIndex_whenSaveEmployee_thenReturnThrowsException() {
+        //given
+        given(emailBloomFilter.mightContain(employee.getEmail())).willReturn(false);
+        given(employeeRepository.saveAndFlush(employee)).willThrow(new DataIntegrityViolationException("duplicate",
+                new ConstraintViolationException("duplicate", new SQLException(), "uk_employee_email")));
+
+        //when
+        org.junit.jupiter.api.Assertions.assertThrows(ResourceNotFoundException.class, () -> {
+            employeeService.saveEmployee(employee);
+        });
+
+        //then
+        verify(emailBloomFilter, never()).add(any());
+    }
+
+    @DisplayName("JUnit test for saveEmployees method")
+    @Test
+    public void givenEmployeesList_whenSaveEmployees_thenSaveInBatches() {
+        //given
+        Employee employee1 = Employee.builder()
+                .firstName("Azalia")
+                .lastName("Santiago")
+                .email("ledtere@gmail.com")
+                .build();
+        List<Employee> employees = List.of(employee, employee1);
+
+        given(employeeRepository.findExistingEmails(List.of(employee.getEmail(), employee1.getEmail()))).willReturn(List.of());
+
+        //when
+        List<Employee> savedEmployees = employeeService.saveEmployees(employees);
+
+        //then
+        assertThat(savedEmployees).containsExactly(employee, employee1);
+        verify(employeeRepository).saveAll(employees);
+        verify(entityManager).flush();
+        verify(entityManager).clear();
+        verify(employeeRepository, never()).findByEmail(any());
+    }
+
+    @DisplayName("JUnit test for saveEmployees method which throws Exception for existing emails")
+    @Test
+    public void givenExistingEmail_whenSaveEmployees_thenThrowsException() {
+        //given
+        given(employeeRepository.findExistingEmails(List.of(employee.getEmail()))).willReturn(List.of(employee.getEmail()));
+
+        //when
+        org.junit.jupiter.api.Assertions.assertThrows(ResourceNotFoundException.class, () -> {
+            employeeService.saveEmployees(List.of(employee));
+        });
+
+        //then
+        verify(employeeRepository, never()).saveAll(any());
+    }
+
+    @DisplayName("JUnit test for saveEmployees method which throws Exception for emails repeated in the batch")
+    @Test
+    public void givenRepeatedEmail_whenSaveEmployees_thenThrowsException() {
+        //given
+        Employee employee1 = Employee.builder()
+                .firstName("Azalia")
+                .lastName("Santiago")
+                .email(employee.getEmail())
+                .build();
+
+        //when
+        org.junit.jupiter.api.Assertions.assertThrows(ResourceNotFoundException.class, () -> {
+            employeeService.saveEmployees(List.of(employee, employee1));
+        });
+
+        //then
+        verify(employeeRepository, never()).findExistingEmails(any());
+        verify(employeeRepository, never()).saveAll(any());
     }
 
     @DisplayName("JUnit test for getAllEmployees")
@@ -124,6 +246,104 @@ public class EmployeeServiceTests {
         assertThat(employeeList.size()).isEqualTo(0);
     }
 
+    @DisplayName("JUnit test for getEmployeesPage when more rows than the limit exist")
+    @Test
+    public void givenMoreEmployeesThanLimit_whenGetEmployeesPage_thenReturnPageWithNextCursor() {
+        //given
+        Employee employee1 = Employee.builder()
+                .id(2L)
+                .firstName("Azalia")
+                .lastName("Santiago")
+                .email("ledtere@gmail.com")
+                .build();
+
+        given(employeeRepository.findPageAfter(0L, PageRequest.of(0, 2))).willReturn(List.of(employee, employee1));
+
+        //when
+        EmployeePage page = employeeService.getEmployeesPage(null, 1);
+
+        //then
+        assertThat(page.getEmployees()).containsExactly(employee);
+        assertThat(page.getNextCursor()).isEqualTo(1L);
+    }
+
+    @DisplayName("JUnit test for getEmployeesPage on the last page")
+    @Test
+    public void givenLastPage_whenGetEmployeesPage_thenReturnPageWithoutNextCursor() {
+        //given
+        given(employeeRepository.findPageAfter(1L, PageRequest.of(0, 11))).willReturn(List.of(employee));
+
+        //when
+        EmployeePage page = employeeService.getEmployeesPage(1L, 10);
+
+        //then
+        assertThat(page.getEmployees()).hasSize(1);
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @DisplayName("JUnit test for exportEmployees streaming and detaching every row")
+    @Test
+    public void givenEmployeeStream_whenExportEmployees_thenConsumeAndDetachEachEmployee() {
+        //given
+        Employee employee1 = Employee.builder()
+                .id(2L)
+                .firstName("Azalia")
+                .lastName("Santiago")
+                .email("ledtere@gmail.com")
+                .build();
+
+        given(employeeRepository.streamAll()).willReturn(Stream.of(employee, employee1));
+
+        //when
+        List<Employee> exported = new ArrayList<>();
+        employeeService.exportEmployees(exported::add);
+
+        //then
+        assertThat(exported).containsExactly(employee, employee1);
+        verify(entityManager).detach(employee);
+        verify(entityManager).detach(employee1);
+    }
+
+    @DisplayName("JUnit test for searchEmployeesByName with an exact first name")
+    @Test
+    public void givenFirstName_whenSearchEmployeesByName_thenMatchAnyLastName() {
+        //given
+        given(employeeRepository.findByName("Jesus", "%", PageRequest.of(0, 20))).willReturn(new SliceImpl<>(List.of()));
+
+        //when
+        employeeService.searchEmployeesByName("Jesus", null, false, 0, 20);
+
+        //then
+        verify(employeeRepository).findByName("Jesus", "%", PageRequest.of(0, 20));
+    }
+
+    @DisplayName("JUnit test for searchEmployeesByName with prefixes containing LIKE wildcards")
+    @Test
+    public void givenPrefixWithWildcards_whenSearchEmployeesByName_thenEscapeWildcards() {
+        //given
+        given(employeeRepository.findByName(any(), any(), any())).willReturn(new SliceImpl<>(List.of()));
+
+        //when
+        employeeService.searchEmployeesByName("J_s", "T%p!", true, -1, 5000);
+
+        //then
+        verify(employeeRepository).findByName("J!_s%", "T!%p!!%", PageRequest.of(0, 1000));
+    }
+
+    @DisplayName("JUnit test for searchEmployees delegating to the search index")
+    @Test
+    public void givenQuery_whenSearchEmployees_thenSearchIndexWithClampedLimit() {
+        //given
+        given(employeeSearchIndex.search("tapia", 100)).willReturn(List.of());
+
+        //when
+        employeeService.searchEmployees("tapia", 5000);
+
+        //then
+        verify(employeeSearchIndex).search("tapia", 100);
+        verifyNoInteractions(employeeRepository);
+    }
+
     @DisplayName("JUnit test for get Employee Object by id")
     @Test
     public void givenEmployeeId_whenGetEmployeeById_thenReturnEmployeeObject() {
@@ -137,6 +357,53 @@ public class EmployeeServiceTests {
         assertThat(savedEmployee).isNotNull();
     }
 
+    @DisplayName("JUnit test for get Employee Object by id through the lookup coalescer")
+    @Test
+    public void givenCoalescingEnabled_whenGetEmployeeById_thenLookupIsCoalesced() {
+        //given
+        given(employeeLookupCoalescer.isEnabled()).willReturn(true);
+        given(employeeLookupCoalescer.findById(1L)).willReturn(Optional.of(employee));
+
+        //when
+        Optional<Employee> foundEmployee = employeeService.getEmployeeById(1L);
+
+        //then
+        assertThat(foundEmployee).contains(employee);
+        verify(employeeRepository, never()).findById(1L);
+    }
+
+    @DisplayName("JUnit test for get Employees by ids in request order")
+    @Test
+    public void givenEmployeeIds_whenGetEmployeesByIds_thenReturnEmployeesInRequestOrder() {
+        //given
+        Employee employee1 = Employee.builder().id(2L).firstName("Azalia").lastName("Santiago").email("ledtere@gmail.com").build();
+        given(employeeRepository.findAllById(List.of(2L, 3L, 1L))).willReturn(List.of(employee, employee1));
+
+        //when
+        List<Employee> employees = employeeService.getEmployeesByIds(List.of(2L, 3L, 1L, 2L));
+
+        //then
+        assertThat(employees).containsExactly(employee1, employee, employee1);
+    }
+
+    @DisplayName("JUnit test for get Employees by ids chunked into IN lists")
+    @Test
+    public void givenManyEmployeeIds_whenGetEmployeesByIds_thenQueryInChunks() {
+        //given
+        List<Long> ids = new ArrayList<>();
+        for (long id = 1; id <= 2500; id++) {
+            ids.add(id);
+        }
+        given(employeeRepository.findAllById(any())).willReturn(List.of());
+
+        //when
+        employeeService.getEmployeesByIds(ids);
+
+        //then
+        verify(employeeRepository, times(3)).findAllById(any());
+        verify(employeeRepository).findAllById(ids.subList(2000, 2500));
+    }
+
     @DisplayName("JUnit test for update Employee object")
     @Test
     public void givenEmployeeObject_whenUpdateEmployee_thenReturnUpdatedEmployee() {
@@ -154,18 +421,103 @@ public class EmployeeServiceTests {
 
     }
 
+    @DisplayName("JUnit test for patch Employee object")
+    @Test
+    public void givenEmployeePatch_whenPatchEmployee_thenReturnTrue() {
+        //given
+        Employee patch = Employee.builder().email("test@test.com").build();
+        given(employeeRepository.patchEmployee(1L, null, null, "test@test.com", null)).willReturn(1);
+
+        //when
+        boolean patched = employeeService.patchEmployee(1L, patch);
+
+        //then
+        assertThat(patched).isTrue();
+        verify(emailBloomFilter).add("test@test.com");
+        ArgumentCaptor<EmployeeChangedEvent> event = ArgumentCaptor.forClass(EmployeeChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertThat(event.getValue().getType()).isEqualTo(EmployeeChangedEvent.Type.UPDATED);
+        assertThat(event.getValue().getEmployee().getEmail()).isEqualTo("test@test.com");
+        assertThat(event.getValue().getEmployee().getFirstName()).isNull();
+    }
+
+    @DisplayName("JUnit test for patch Employee object with unknown id")
+    @Test
+    public void givenInvalidEmployeeId_whenPatchEmployee_thenReturnFalse() {
+        //given
+        Employee patch = Employee.builder().firstName("test").build();
+        given(employeeRepository.patchEmployee(1L, "test", null, null, null)).willReturn(0);
+
+        //when
+        boolean patched = employeeService.patchEmployee(1L, patch);
+
+        //then
+        assertThat(patched).isFalse();
+    }
+
     @DisplayName("JUnit test for delete Employee object")
     @Test
     public void givenEmployeeId_whenDeleteEmployee_thenNothing() {
         long employeeId = 1L;
 
         //given
-        willDoNothing().given(employeeRepository).deleteById(1L);
+        given(employeeRepository.deleteEmployeeById(employeeId)).willReturn(1);
         //when
-        employeeService.deleteEmployee(employeeId);
+        boolean deleted = employeeService.deleteEmployee(employeeId);
 
         //then
-        verify(employeeRepository, times(1)).deleteById(employeeId);
+        assertThat(deleted).isTrue();
+        verify(employeeRepository, times(1)).deleteEmployeeById(employeeId);
+        verify(employeeRepository, never()).findById(employeeId);
+        ArgumentCaptor<EmployeeChangedEvent> event = ArgumentCaptor.forClass(EmployeeChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertThat(event.getValue().getType()).isEqualTo(EmployeeChangedEvent.Type.DELETED);
+        assertThat(event.getValue().getEmployeeId()).isEqualTo(employeeId);
 
     }
+
+    @DisplayName("JUnit test for delete Employee object with unknown id")
+    @Test
+    public void givenInvalidEmployeeId_whenDeleteEmployee_thenReturnFalse() {
+        //given
+        given(employeeRepository.deleteEmployeeById(1L)).willReturn(0);
+
+        //when
+        boolean deleted = employeeService.deleteEmployee(1L);
+
+        //then
+        assertThat(deleted).isFalse();
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @DisplayName("JUnit test for bulk delete of Employee objects")
+    @Test
+    public void givenEmployeeIds_whenDeleteEmployees_thenReturnDeletedCount() {
+        //given
+        given(employeeRepository.findExistingIds(List.of(1L, 2L, 3L))).willReturn(List.of(1L, 3L));
+        given(employeeRepository.deleteEmployeesByIds(List.of(1L, 3L))).willReturn(2);
+
+        //when
+        int deleted = employeeService.deleteEmployees(List.of(1L, 2L, 3L));
+
+        //then
+        assertThat(deleted).isEqualTo(2);
+        ArgumentCaptor<EmployeeChangedEvent> events = ArgumentCaptor.forClass(EmployeeChangedEvent.class);
+        verify(eventPublisher, times(2)).publishEvent(events.capture());
+        assertThat(events.getAllValues()).extracting(EmployeeChangedEvent::getEmployeeId).containsExactly(1L, 3L);
+    }
+
+    @DisplayName("JUnit test for delete Employee object with a matching version")
+    @Test
+    public void givenEmployeeIdAndVersion_whenDeleteEmployee_thenReturnTrue() {
+        //given
+        given(employeeRepository.deleteByIdAndVersion(1L, 3L)).willReturn(1);
+
+        //when
+        boolean deleted = employeeService.deleteEmployee(1L, 3L);
+
+        //then
+        assertThat(deleted).isTrue();
+        verify(employeeRepository, never()).deleteEmployeeById(any());
+    }
 }
@@ -0,0 +1,276 @@
+package net.javaguides.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.javaguides.dto.WriteStatus;
+import net.javaguides.exception.ResourceNotFoundException;
+import net.javaguides.model.Employee;
+import net.javaguides.service.impl.EmployeeWriteBehindQueue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class EmployeeWriteBehindQueueTests {
+
+    @Mock
+    private EmployeeService employeeService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path journalDirectory;
+
+    private final List<EmployeeWriteBehindQueue> started = new ArrayList<>();
+
+    @AfterEach
+    public void tearDown() {
+        started.forEach(EmployeeWriteBehindQueue::stop);
+    }
+
+    @DisplayName("JUnit test for queued creates committed as one batch")
+    @Test
+    public void givenQueuedCreates_whenFlush_thenSaveAllInOneCall() {
+        //given
+        EmployeeWriteBehindQueue queue = start(queue(10, 100, Duration.ofHours(1), ""));
+        AtomicLong ids = new AtomicLong();
+        given(employeeService.saveEmployees(anyList())).willAnswer(invocation -> {
+            List<Employee> employees = invocation.getArgument(0);
+            employees.forEach(employee -> employee.setId(ids.incrementAndGet()));
+            return employees;
+        });
+        WriteStatus first = queue.submitCreate(employee(1)).orElseThrow();
+        WriteStatus second = queue.submitCreate(employee(2)).orElseThrow();
+
+        //when
+        queue.flush();
+
+        //then
+        verify(employeeService, times(1)).saveEmployees(anyList());
+        assertThat(queue.getStatus(first.getTicket())).get()
+                .extracting(WriteStatus::getState, WriteStatus::getEmployeeId)
+                .containsExactly(WriteStatus.State.COMMITTED, 1L);
+        assertThat(queue.getStatus(second.getTicket())).get()
+                .extracting(WriteStatus::getState, WriteStatus::getEmployeeId)
+                .containsExactly(WriteStatus.State.COMMITTED, 2L);
+        verify(transactionManager, times(1)).commit(any());
+    }
+
+    @DisplayName("JUnit test for updates of the same employee coalesced, the last one winning")
+    @Test
+    public void givenUpdatesOfSameEmployee_whenFlush_thenApplyOnce() {
+        //given
+        EmployeeWriteBehindQueue queue = start(queue(10, 100, Duration.ofHours(1), ""));
+        given(employeeService.patchEmployee(eq(7L), any(Employee.class))).willReturn(true);
+        WriteStatus first = queue.submitUpdate(7L, employee(1), null).orElseThrow();
+        WriteStatus second = queue.submitUpdate(7L, employee(2), null).orElseThrow();
+
+        //when
+        queue.flush();
+
+        //then
+        ArgumentCaptor<Employee> patch = ArgumentCaptor.forClass(Employee.class);
+        verify(employeeService, times(1)).patchEmployee(eq(7L), patch.capture());
+        assertThat(patch.getValue().getEmail()).isEqualTo(employee(2).getEmail());
+        assertThat(patch.getValue().getVersion()).isNull();
+        assertThat(queue.getStatus(first.getTicket())).get().extracting(WriteStatus::getState).isEqualTo(WriteStatus.State.COMMITTED);
+        assertThat(queue.getStatus(second.getTicket())).get().extracting(WriteStatus::getState).isEqualTo(WriteStatus.State.COMMITTED);
+    }
+
+    @DisplayName("JUnit test for updates of different fields of the same employee merged into one")
+    @Test
+    public void givenUpdatesOfDifferentFields_whenFlush_thenApplyBothFields() {
+        //given
+        EmployeeWriteBehindQueue queue = start(queue(10, 100, Duration.ofHours(1), ""));
+        given(employeeService.patchEmployee(eq(7L), any(Employee.class))).willReturn(true);
+        WriteStatus firstName = queue.submitUpdate(7L, Employee.builder().firstName("Azalia").build(), null).orElseThrow();
+        WriteStatus email = queue.submitUpdate(7L, Employee.builder().email("ledtere@gmail.com").build(), null).orElseThrow();
+
+        //when
+        queue.flush();
+
+        //then
+        ArgumentCaptor<Employee> patch = ArgumentCaptor.forClass(Employee.class);
+        verify(employeeService, times(1)).patchEmployee(eq(7L), patch.capture());
+        assertThat(patch.getValue())
+                .extracting(Employee::getFirstName, Employee::getLastName, Employee::getEmail)
+                .containsExactly("Azalia", null, "ledtere@gmail.com");
+        assertThat(queue.getStatus(firstName.getTicket())).get().extracting(WriteStatus::getState).isEqualTo(WriteStatus.State.COMMITTED);
+        assertThat(queue.getStatus(email.getTicket())).get().extracting(WriteStatus::getState).isEqualTo(WriteStatus.State.COMMITTED);
+    }
+
+    @DisplayName("JUnit test for an update made against a version that changed before it was applied")
+    @Test
+    public void givenStaleVersionedUpdate_whenFlush_thenUpdateFails() {
+        //given
+        EmployeeWriteBehindQueue queue = start(queue(10, 100, Duration.ofHours(1), ""));
+        given(employeeService.patchEmployee(eq(7L), any(Employee.class)))
+                .willAnswer(invocation -> invocation.<Employee>getArgument(1).getVersion() == null);
+        WriteStatus versioned = queue.submitUpdate(7L, employee(1), 3L).orElseThrow();
+        WriteStatus unversioned = queue.submitUpdate(7L, employee(2), null).orElseThrow();
+
+        //when
+        queue.flush();
+
+        //then
+        ArgumentCaptor<Employee> patch = ArgumentCaptor.forClass(Employee.class);
+        verify(employeeService, times(2)).patchEmployee(eq(7L), patch.capture());
+        assertThat(patch.getAllValues()).extracting(Employee::getVersion).containsExactly(3L, null);
+        assertThat(queue.getStatus(versioned.getTicket())).get()
+                .extracting(WriteStatus::getState).isEqualTo(WriteStatus.State.FAILED);
+        assertThat(queue.getStatus(unversioned.getTicket())).get()
+                .extracting(WriteStatus::getState).isEqualTo(WriteStatus.State.COMMITTED);
+    }
+
+    @DisplayName("JUnit test for submissions rejected once the queue is stopped")
+    @Test
+    public void givenStoppedQueue_whenSubmitCreate_thenReject() {
+        //given
+        EmployeeWriteBehindQueue queue = queue(10, 100, Duration.ofHours(1), "");
+        queue.start();
+        queue.stop();
+
+        //when
+        boolean accepted = queue.submitCreate(employee(1)).isPresent();
+
+        //then
+        assertThat(accepted).isFalse();
+        assertThat(queue.pendingWrites()).isZero();
+    }
+
+    @DisplayName("JUnit test for a failed group retried write by write")
+    @Test
+    public void givenDuplicateEmailInGroup_whenFlush_thenOnlyDuplicateFails() {
+        //given
+        EmployeeWriteBehindQueue queue = start(queue(10, 100, Duration.ofHours(1), ""));
+        given(employeeService.saveEmployees(anyList())).willAnswer(invocation -> {
+            List<Employee> employees = invocation.getArgument(0);
+            if (employees.size() > 1 || employees.get(0).getEmail().equals(employee(2).getEmail())) {
+                throw new ResourceNotFoundException("Employee already exist with email: " + employee(2).getEmail());
+            }
+            employees.get(0).setId(1L);
+            return employees;
+        });
+        given(employeeService.patchEmployee(eq(9L), any(Employee.class))).willReturn(false);
+        WriteStatus good = queue.submitCreate(employee(1)).orElseThrow();
+        WriteStatus duplicate = queue.submitCreate(employee(2)).orElseThrow();
+        WriteStatus unknown = queue.submitUpdate(9L, employee(3), null).orElseThrow();
+
+        //when
+        queue.flush();
+
+        //then
+        assertThat(queue.getStatus(good.getTicket())).get()
+                .extracting(WriteStatus::getState, WriteStatus::getEmployeeId)
+                .containsExactly(WriteStatus.State.COMMITTED, 1L);
+        assertThat(queue.getStatus(duplicate.getTicket())).get()
+                .extracting(WriteStatus::getState, WriteStatus::getMessage)
+                .containsExactly(WriteStatus.State.FAILED, "Employee already exist with email: " + employee(2).getEmail());
+        assertThat(queue.getStatus(unknown.getTicket())).get()
+                .extracting(WriteStatus::getState).isEqualTo(WriteStatus.State.FAILED);
+    }
+
+    @DisplayName("JUnit test for submissions rejected while the queue is full")
+    @Test
+    public void givenFullQueue_whenSubmitCreate_thenReject() {
+        //given
+        EmployeeWriteBehindQueue queue = start(queue(2, 100, Duration.ofHours(1), ""));
+        queue.submitCreate(employee(1));
+        queue.submitCreate(employee(2));
+
+        //when
+        boolean accepted = queue.submitCreate(employee(3)).isPresent();
+
+        //then
+        assertThat(accepted).isFalse();
+        assertThat(queue.pendingWrites()).isEqualTo(2);
+    }
+
+    @DisplayName("JUnit test for the writer thread committing a full batch")
+    @Test
+    public void givenFullBatch_whenStarted_thenWriterCommitsWithoutWaitingForInterval() throws InterruptedException {
+        //given
+        EmployeeWriteBehindQueue queue = start(queue(10, 2, Duration.ofHours(1), ""));
+        given(employeeService.saveEmployees(anyList())).willAnswer(invocation -> invocation.getArgument(0));
+
+        //when
+        WriteStatus first = queue.submitCreate(employee(1)).orElseThrow();
+        queue.submitCreate(employee(2));
+
+        //then
+        awaitUntil(() -> queue.getStatus(first.getTicket())
+                .map(status -> status.getState() == WriteStatus.State.COMMITTED).orElse(false));
+        assertThat(queue.pendingWrites()).isZero();
+    }
+
+    @DisplayName("JUnit test for journaled writes replayed after a crash")
+    @Test
+    public void givenJournaledWritesOfCrashedRun_whenStarted_thenReplayThem() {
+        //given
+        EmployeeWriteBehindQueue crashed = start(queue(10, 100, Duration.ofHours(1), journalDirectory.toString()));
+        WriteStatus create = crashed.submitCreate(employee(1)).orElseThrow();
+        WriteStatus update = crashed.submitUpdate(7L, employee(2), null).orElseThrow();
+        given(employeeService.saveEmployees(anyList())).willAnswer(invocation -> invocation.getArgument(0));
+        given(employeeService.patchEmployee(eq(7L), any(Employee.class))).willReturn(true);
+
+        //when
+        EmployeeWriteBehindQueue restarted = start(queue(10, 100, Duration.ofHours(1), journalDirectory.toString()));
+        restarted.flush();
+
+        //then
+        ArgumentCaptor<List<Employee>> creates = ArgumentCaptor.forClass(List.class);
+        verify(employeeService).saveEmployees(creates.capture());
+        assertThat(creates.getValue()).extracting(Employee::getEmail).containsExactly(employee(1).getEmail());
+        verify(employeeService).patchEmployee(eq(7L), any(Employee.class));
+        assertThat(restarted.getStatus(create.getTicket())).get().extracting(WriteStatus::getState).isEqualTo(WriteStatus.State.COMMITTED);
+        assertThat(restarted.getStatus(update.getTicket())).get().extracting(WriteStatus::getState).isEqualTo(WriteStatus.State.COMMITTED);
+    }
+
+    private EmployeeWriteBehindQueue queue(int capacity, int maxBatchSize, Duration flushInterval, String journalDirectory) {
+        return new EmployeeWriteBehindQueue(employeeService, transactionManager, new ObjectMapper(), true,
+                capacity, maxBatchSize, flushInterval, journalDirectory, false);
+    }
+
+    private EmployeeWriteBehindQueue start(EmployeeWriteBehindQueue queue) {
+        queue.start();
+        started.add(queue);
+        return queue;
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+
+    private static Employee employee(int n) {
+        return Employee.builder()
+                .firstName("First" + n)
+                .lastName("Last" + n)
+                .email("employee" + n + "@example.com")
+                .build();
+    }
+}
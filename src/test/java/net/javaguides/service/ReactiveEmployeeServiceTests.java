@@ -0,0 +1,160 @@
+package net.javaguides.service;
+
+import net.javaguides.config.CacheConfig;
+import net.javaguides.event.EmployeeChangedEvent;
+import net.javaguides.model.Employee;
+import net.javaguides.model.EmployeeRow;
+import net.javaguides.repository.ReactiveEmployeeRepository;
+import net.javaguides.service.impl.ReactiveEmployeeServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import javax.persistence.Cache;
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+public class ReactiveEmployeeServiceTests {
+
+    @Mock
+    private ReactiveEmployeeRepository employeeRepository;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private EntityManagerFactory entityManagerFactory;
+    @Mock
+    private Cache jpaCache;
+    @Mock
+    private org.hibernate.Cache hibernateCache;
+    @Mock
+    private TransactionalOperator transactionalOperator;
+
+    private CacheManager cacheManager;
+    private ReactiveEmployeeServiceImpl employeeService;
+
+    private Employee employee;
+
+    @BeforeEach
+    public void setup() {
+        cacheManager = new ConcurrentMapCacheManager(CacheConfig.EMPLOYEES_CACHE);
+        given(entityManagerFactory.getCache()).willReturn(jpaCache);
+        given(jpaCache.unwrap(org.hibernate.Cache.class)).willReturn(hibernateCache);
+        employeeService = new ReactiveEmployeeServiceImpl(employeeRepository, transactionalOperator, cacheManager, eventPublisher, entityManagerFactory);
+        employee = Employee.builder()
+                .id(1L)
+                .firstName("Jesus")
+                .lastName("Tapia")
+                .email("chucholuco@gmail.com")
+                .build();
+    }
+
+    @DisplayName("JUnit test for get Employee Object by id from the database")
+    @Test
+    public void givenEmployeeId_whenGetEmployeeById_thenReturnEmployeeObject() {
+        //given
+        given(employeeRepository.findById(1L)).willReturn(Mono.just(row(employee)));
+
+        //when - then
+        StepVerifier.create(employeeService.getEmployeeById(1L))
+                .assertNext(found -> assertThat(found).usingRecursiveComparison().isEqualTo(employee))
+                .verifyComplete();
+    }
+
+    @DisplayName("JUnit test for get Employee Object by id from the shared cache")
+    @Test
+    public void givenCachedEmployee_whenGetEmployeeById_thenSkipDatabase() {
+        //given
+        cacheManager.getCache(CacheConfig.EMPLOYEES_CACHE).put(1L, employee);
+
+        //when - then
+        StepVerifier.create(employeeService.getEmployeeById(1L))
+                .expectNext(employee)
+                .verifyComplete();
+        verifyNoInteractions(employeeRepository);
+    }
+
+    @DisplayName("JUnit test for getEmployeesPage when more rows than the limit exist")
+    @Test
+    public void givenMoreEmployeesThanLimit_whenGetEmployeesPage_thenReturnPageWithNextCursor() {
+        //given
+        Employee employee1 = Employee.builder().id(2L).firstName("Azalia").lastName("Santiago").email("ledtere@gmail.com").build();
+        given(employeeRepository.findPageAfter(0L, 2)).willReturn(Flux.just(row(employee), row(employee1)));
+
+        //when - then
+        StepVerifier.create(employeeService.getEmployeesPage(null, 1))
+                .assertNext(page -> {
+                    assertThat(page.getEmployees()).extracting(Employee::getEmail).containsExactly(employee.getEmail());
+                    assertThat(page.getNextCursor()).isEqualTo(1L);
+                })
+                .verifyComplete();
+    }
+
+    @DisplayName("JUnit test for delete Employee object")
+    @Test
+    public void givenEmployeeId_whenDeleteEmployee_thenEvictCacheAndPublishEvent() {
+        //given
+        cacheManager.getCache(CacheConfig.EMPLOYEES_CACHE).put(1L, employee);
+        given(employeeRepository.deleteEmployeeById(1L)).willReturn(Mono.just(1));
+        given(employeeRepository.lockChanges()).willReturn(Mono.just(1));
+        given(employeeRepository.insertDeletedChange(eq(1L), any(LocalDateTime.class))).willReturn(Mono.just(1));
+        given(transactionalOperator.transactional(any(Mono.class))).willAnswer(invocation -> invocation.getArgument(0));
+        AtomicReference<String> publishingThread = new AtomicReference<>();
+        willAnswer(invocation -> {
+            publishingThread.set(Thread.currentThread().getName());
+            return null;
+        }).given(eventPublisher).publishEvent(any(EmployeeChangedEvent.class));
+
+        //when - then
+        StepVerifier.create(employeeService.deleteEmployee(1L))
+                .expectNext(true)
+                .verifyComplete();
+        assertThat(cacheManager.getCache(CacheConfig.EMPLOYEES_CACHE).get(1L)).isNull();
+        verify(hibernateCache).evictEntityData(Employee.class, 1L);
+        verify(hibernateCache).evictDefaultQueryRegion();
+        ArgumentCaptor<EmployeeChangedEvent> event = ArgumentCaptor.forClass(EmployeeChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertThat(event.getValue().getType()).isEqualTo(EmployeeChangedEvent.Type.DELETED);
+        assertThat(publishingThread.get()).startsWith("boundedElastic");
+    }
+
+    @DisplayName("JUnit test for delete Employee object with unknown id")
+    @Test
+    public void givenInvalidEmployeeId_whenDeleteEmployee_thenReturnFalse() {
+        //given
+        given(employeeRepository.deleteEmployeeById(1L)).willReturn(Mono.just(0));
+        given(transactionalOperator.transactional(any(Mono.class))).willAnswer(invocation -> invocation.getArgument(0));
+
+        //when - then
+        StepVerifier.create(employeeService.deleteEmployee(1L))
+                .expectNext(false)
+                .verifyComplete();
+        verifyNoInteractions(eventPublisher);
+        verify(employeeRepository, never()).insertDeletedChange(any(), any());
+    }
+
+    private static EmployeeRow row(Employee employee) {
+        return new EmployeeRow(employee.getId(), employee.getFirstName(), employee.getLastName(), employee.getEmail(), employee.getVersion());
+    }
+}